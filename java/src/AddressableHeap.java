@@ -0,0 +1,15 @@
+// Min-heap of ids 0..n-1 with priorities that supports decrease-key, see
+// https://en.wikipedia.org/wiki/Priority_queue and DijkstraCustomHeap, PrimHeap for usage
+public interface AddressableHeap {
+
+	// precondition: id is not in the heap
+	void add(int id, long value);
+
+	// precondition: id is in the heap and value does not exceed its current priority
+	void decreaseKey(int id, long value);
+
+	// removes and returns the id with the minimum priority
+	int removeMin();
+
+	int size();
+}
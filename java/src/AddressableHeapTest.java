@@ -0,0 +1,110 @@
+import java.util.*;
+import java.util.function.IntFunction;
+
+public class AddressableHeapTest {
+
+	static final String[] NAMES = {"binary", "binary extended", "4-ary", "8-ary", "pairing"};
+
+	static List<IntFunction<AddressableHeap>> heaps() {
+		return Arrays.asList(DijkstraCustomHeap.BinaryHeap::new, BinaryHeapExtended::new, n -> new DaryHeap(n, 4), n -> new DaryHeap(n, 8), PairingHeap::new);
+	}
+
+	public static void main(String[] args) {
+		test();
+		perfomance();
+	}
+
+	static void test() {
+		Random rnd = new Random(1);
+		for (IntFunction<AddressableHeap> factory : heaps()) {
+			for (int step = 0; step < 1000; step++) {
+				int n = rnd.nextInt(100) + 1;
+				AddressableHeap h = factory.apply(n);
+				long[] value = new long[n];
+				boolean[] inHeap = new boolean[n];
+				TreeSet<Long> set = new TreeSet<>();
+				for (int op = 0; op < 1000; op++) {
+					int id = rnd.nextInt(n);
+					if (!inHeap[id]) {
+						value[id] = rnd.nextInt(1000);
+						h.add(id, value[id]);
+						inHeap[id] = true;
+						set.add(value[id] * n + id);
+					} else if (rnd.nextBoolean()) {
+						set.remove(value[id] * n + id);
+						value[id] -= rnd.nextInt(10);
+						h.decreaseKey(id, value[id]);
+						set.add(value[id] * n + id);
+					} else {
+						int removed = h.removeMin();
+						long min = Math.floorDiv(set.first(), n);
+						if (!inHeap[removed] || value[removed] != min)
+							throw new RuntimeException();
+						set.remove(value[removed] * n + removed);
+						inHeap[removed] = false;
+					}
+					if (h.size() != set.size())
+						throw new RuntimeException();
+				}
+			}
+		}
+
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(50) + 1;
+			List<DijkstraCustomHeap.Edge>[] edges = new List[n];
+			List<PrimHeap.Edge>[] undirected = new List[n];
+			for (int i = 0; i < n; i++) {
+				edges[i] = new ArrayList<>();
+				undirected[i] = new ArrayList<>();
+			}
+			for (int i = 0; i < 3 * n; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int cost = rnd.nextInt(100);
+				edges[u].add(new DijkstraCustomHeap.Edge(v, cost));
+				undirected[u].add(new PrimHeap.Edge(v, cost));
+				undirected[v].add(new PrimHeap.Edge(u, cost));
+			}
+			long[] prio1 = new long[n];
+			long[] prio2 = new long[n];
+			int[] pred = new int[n];
+			DijkstraCustomHeap.shortestPaths(edges, 0, prio1, pred);
+			long mst = PrimHeap.mst(undirected, pred);
+			for (IntFunction<AddressableHeap> factory : heaps()) {
+				DijkstraCustomHeap.shortestPaths(edges, 0, prio2, pred, factory.apply(n));
+				if (!Arrays.equals(prio1, prio2) || mst != PrimHeap.mst(undirected, pred, factory.apply(n)))
+					throw new RuntimeException();
+			}
+		}
+	}
+
+	static void perfomance() {
+		Random rnd = new Random(1);
+		benchmark("sparse", 1_000_000, 4_000_000, rnd);
+		benchmark("dense", 3_000, 9_000_000, rnd);
+	}
+
+	static void benchmark(String name, int n, int m, Random rnd) {
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] cost = new int[m];
+		for (int i = 0; i < m; i++) {
+			from[i] = rnd.nextInt(n);
+			to[i] = rnd.nextInt(n);
+			cost[i] = rnd.nextInt(1_000_000);
+		}
+		CsrGraph g = CsrGraph.build(n, from, to, cost);
+		long[] prio = new long[n];
+		int[] pred = new int[n];
+		List<IntFunction<AddressableHeap>> heaps = heaps();
+		for (int rep = 0; rep < 2; rep++) {
+			StringBuilder sb = new StringBuilder(name + " n = " + n + " m = " + m + ":");
+			for (int i = 0; i < heaps.size(); i++) {
+				long time = System.currentTimeMillis();
+				DijkstraCustomHeap.shortestPaths(g, 0, prio, pred, heaps.get(i).apply(n));
+				sb.append(" ").append(NAMES[i]).append(" = ").append(System.currentTimeMillis() - time).append(" ms");
+			}
+			System.out.println(sb);
+		}
+	}
+}
@@ -0,0 +1,323 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Auction_algorithm with epsilon scaling and Jacobi bidding
+// Persons maximize benefit -cost * (m + 1), so the final 1-complementary slackness assignment is optimal for
+// integer costs. In every round all unassigned persons bid in parallel against the same prices: a person bids
+// for its best object j, raising p[j] by (best - second best) + eps, and every object takes its highest bid.
+// With n < m the missing m - n persons have benefit 0 for every object. The sparse variant only lets a person
+// bid for its candidates and needs a perfect matching among them. Without one the persons competing for too
+// few objects raise prices forever: with a perfect matching no price rises more than about 2m * (range + eps)
+// within a phase (Bertsekas), so a larger rise is reported as IllegalArgumentException.
+public class AuctionAssignment {
+
+	static final int THETA = 6;
+
+	public static class Edge {
+		final int to, cost;
+
+		public Edge(int to, int cost) {
+			this.to = to;
+			this.cost = cost;
+		}
+	}
+
+	final int n;
+	final int m;
+	// dense costs as in Hungarian, 1-based
+	int[][] a;
+	// sparse costs as CSR, 0-based
+	int[] offsets;
+	int[] targets;
+	int[] cost;
+	long scale;
+	long range;
+
+	long[] price;
+	long priceLimit;
+	final AtomicBoolean priceLimitExceeded = new AtomicBoolean();
+	int[] owner;
+	int[] assigned;
+	AtomicLongArray bestBid;
+	AtomicIntegerArray winner;
+	int[] bidObject;
+	long[] bidValue;
+
+	AuctionAssignment(int n, int m) {
+		this.n = n;
+		this.m = m;
+		scale = m + 1;
+	}
+
+	// a[n][m], n <= m, sum(a[i][p[i]] -> min
+	public static int minWeightPerfectMatching(int[][] a) {
+		return minWeightPerfectMatching(a, ForkJoinPool.commonPool());
+	}
+
+	public static int minWeightPerfectMatching(int[][] a, ForkJoinPool pool) {
+		AuctionAssignment auction = new AuctionAssignment(a.length - 1, a[0].length - 1);
+		auction.a = a;
+		int min = 0;
+		int max = 0;
+		for (int i = 1; i <= auction.n; i++) {
+			for (int j = 1; j <= auction.m; j++) {
+				min = Math.min(min, a[i][j]);
+				max = Math.max(max, a[i][j]);
+			}
+		}
+		auction.range = ((long) max - min) * auction.scale;
+		auction.solve(pool);
+		int res = 0;
+		for (int i = 0; i < auction.n; i++)
+			res += a[i + 1][auction.assigned[i] + 1];
+		return res;
+	}
+
+	// candidates[i] lists the objects 0 <= to < m that person i may get, n <= m
+	public static int minWeightPerfectMatching(List<Edge>[] candidates, int m) {
+		return minWeightPerfectMatching(candidates, m, ForkJoinPool.commonPool());
+	}
+
+	public static int minWeightPerfectMatching(List<Edge>[] candidates, int m, ForkJoinPool pool) {
+		int n = candidates.length;
+		for (int i = 0; i < n; i++)
+			if (candidates[i].isEmpty())
+				throw new IllegalArgumentException("person " + i + " has no candidates");
+		AuctionAssignment auction = new AuctionAssignment(n, m);
+		auction.offsets = new int[n + 1];
+		for (int i = 0; i < n; i++)
+			auction.offsets[i + 1] = auction.offsets[i] + candidates[i].size();
+		auction.targets = new int[auction.offsets[n]];
+		auction.cost = new int[auction.offsets[n]];
+		int min = 0;
+		int max = 0;
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidates[i].size(); k++) {
+				Edge e = candidates[i].get(k);
+				auction.targets[auction.offsets[i] + k] = e.to;
+				auction.cost[auction.offsets[i] + k] = e.cost;
+				min = Math.min(min, e.cost);
+				max = Math.max(max, e.cost);
+			}
+		}
+		auction.range = ((long) max - min) * auction.scale;
+		auction.solve(pool);
+		int res = 0;
+		for (int i = 0; i < n; i++) {
+			int c = Integer.MAX_VALUE;
+			for (int k = auction.offsets[i]; k < auction.offsets[i + 1]; k++)
+				if (auction.targets[k] == auction.assigned[i])
+					c = Math.min(c, auction.cost[k]);
+			res += c;
+		}
+		return res;
+	}
+
+	void solve(ForkJoinPool pool) {
+		price = new long[m];
+		owner = new int[m];
+		assigned = new int[m];
+		bestBid = new AtomicLongArray(m);
+		winner = new AtomicIntegerArray(m);
+		bidObject = new int[m];
+		bidValue = new long[m];
+		for (int j = 0; j < m; j++) {
+			bestBid.set(j, Long.MIN_VALUE);
+			winner.set(j, -1);
+		}
+		long eps = Math.max(1, range);
+		do {
+			eps = Math.max(1, eps / THETA);
+			Arrays.fill(owner, -1);
+			Arrays.fill(assigned, -1);
+			long base = Arrays.stream(price).max().orElse(0);
+			priceLimit = (long) Math.min(Long.MAX_VALUE / 2, base + 2.0 * m * (range + eps));
+			int[] unassigned = IntStream.range(0, m).toArray();
+			while (unassigned.length > 0) {
+				unassigned = round(unassigned, eps, pool);
+				if (priceLimitExceeded.get())
+					throw new IllegalArgumentException("no perfect matching among the candidates");
+			}
+		} while (eps > 1);
+	}
+
+	// one Jacobi round, returns the persons that are unassigned afterwards
+	int[] round(int[] unassigned, long eps, ForkJoinPool pool) {
+		int size = unassigned.length;
+		pool.submit(() -> IntStream.range(0, size).parallel().forEach(k -> {
+			bid(unassigned[k], k, eps);
+			bestBid.accumulateAndGet(bidObject[k], bidValue[k], Math::max);
+		})).join();
+		int[] displaced = new int[size];
+		AtomicInteger displacedSize = new AtomicInteger();
+		pool.submit(() -> IntStream.range(0, size).parallel().forEach(k -> {
+			int j = bidObject[k];
+			if (bidValue[k] == bestBid.get(j))
+				winner.compareAndSet(j, -1, unassigned[k]);
+		})).join();
+		pool.submit(() -> IntStream.range(0, size).parallel().forEach(k -> {
+			int i = unassigned[k];
+			int j = bidObject[k];
+			if (winner.get(j) != i)
+				return;
+			int prev = owner[j];
+			owner[j] = i;
+			assigned[i] = j;
+			price[j] = bestBid.get(j);
+			if (price[j] > priceLimit)
+				priceLimitExceeded.set(true);
+			if (prev != -1) {
+				assigned[prev] = -1;
+				displaced[displacedSize.getAndIncrement()] = prev;
+			}
+		})).join();
+		return pool.submit(() -> {
+			IntStream.range(0, size).parallel().forEach(k -> {
+				bestBid.set(bidObject[k], Long.MIN_VALUE);
+				winner.set(bidObject[k], -1);
+			});
+			return IntStream.concat(IntStream.of(unassigned).parallel().filter(i -> assigned[i] == -1),
+					IntStream.of(displaced).limit(displacedSize.get())).toArray();
+		}).join();
+	}
+
+	void bid(int i, int k, long eps) {
+		long best = Long.MIN_VALUE;
+		long second = Long.MIN_VALUE;
+		int bestObject = -1;
+		if (i >= n) {
+			for (int j = 0; j < m; j++) {
+				long v = -price[j];
+				if (best < v) {
+					second = best;
+					best = v;
+					bestObject = j;
+				} else if (second < v) {
+					second = v;
+				}
+			}
+		} else if (a != null) {
+			int[] row = a[i + 1];
+			for (int j = 0; j < m; j++) {
+				long v = -row[j + 1] * scale - price[j];
+				if (best < v) {
+					second = best;
+					best = v;
+					bestObject = j;
+				} else if (second < v) {
+					second = v;
+				}
+			}
+		} else {
+			for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+				int j = targets[e];
+				long v = -cost[e] * scale - price[j];
+				if (best < v) {
+					second = best;
+					best = v;
+					bestObject = j;
+				} else if (second < v) {
+					second = v;
+				}
+			}
+		}
+		// without a second candidate any raise keeps eps-complementary slackness
+		long raise = second == Long.MIN_VALUE ? range : best - second;
+		bidObject[k] = bestObject;
+		bidValue[k] = price[bestObject] + raise + eps;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int step = 0; step < 1000; step++) {
+			int max = 9;
+			int n = rnd.nextInt(max) + 1;
+			int m = n + rnd.nextInt(max + 1 - n);
+			int[][] a = new int[n + 1][m + 1];
+			for (int i = 1; i <= n; i++)
+				for (int j = 1; j <= m; j++)
+					a[i][j] = rnd.nextInt(100_000) - 50_000;
+			if (minWeightPerfectMatching(a, pool) != Hungarian.minWeightPerfectMatching(a))
+				throw new RuntimeException();
+
+			// sparse: a random perfect matching plus random candidates, the others cost too much for Hungarian
+			List<Edge>[] candidates = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			int[][] b = new int[n + 1][m + 1];
+			for (int[] row : b)
+				Arrays.fill(row, 10_000_000);
+			List<Integer> perm = new ArrayList<>();
+			for (int j = 0; j < m; j++)
+				perm.add(j);
+			Collections.shuffle(perm, rnd);
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < m; j++) {
+					if (j == perm.get(i) || rnd.nextInt(3) == 0) {
+						int c = rnd.nextInt(1000) - 500;
+						candidates[i].add(new Edge(j, c));
+						b[i + 1][j + 1] = c;
+					}
+				}
+			}
+			if (minWeightPerfectMatching(candidates, m, pool) != Hungarian.minWeightPerfectMatching(b))
+				throw new RuntimeException();
+		}
+
+		// n + 1 persons share n objects, or one has no candidates
+		for (int step = 0; step < 100; step++) {
+			int n = rnd.nextInt(5) + 1;
+			int m = n + 1 + rnd.nextInt(5);
+			List<Edge>[] candidates = Stream.generate(ArrayList::new).limit(n + 1).toArray(List[]::new);
+			for (int i = 0; i <= n; i++)
+				for (int j = 0; j < n; j++)
+					candidates[i].add(new Edge(j, rnd.nextInt(1000)));
+			if (step % 10 == 0)
+				candidates[rnd.nextInt(n + 1)].clear();
+			boolean thrown = false;
+			try {
+				minWeightPerfectMatching(candidates, m, pool);
+			} catch (IllegalArgumentException e) {
+				thrown = true;
+			}
+			if (!thrown)
+				throw new RuntimeException();
+		}
+		pool.shutdown();
+
+		int n = 2000;
+		int[][] a = new int[n + 1][n + 1];
+		for (int i = 1; i <= n; i++)
+			for (int j = 1; j <= n; j++)
+				a[i][j] = rnd.nextInt(100_000);
+		long time = System.currentTimeMillis();
+		int res1 = minWeightPerfectMatching(a);
+		long time1 = System.currentTimeMillis();
+		int res2 = Hungarian.minWeightPerfectMatching(a);
+		long time2 = System.currentTimeMillis();
+		if (res1 != res2)
+			throw new RuntimeException();
+		System.out.println("dense " + n + "x" + n + ": auction = " + (time1 - time) + " ms, Hungarian = " + (time2 - time1) + " ms");
+
+		n = 10_000;
+		List<Edge>[] candidates = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		for (int i = 0; i < n; i++) {
+			candidates[i].add(new Edge(i, rnd.nextInt(100_000)));
+			for (int k = 0; k < 50; k++)
+				candidates[i].add(new Edge(rnd.nextInt(n), rnd.nextInt(100_000)));
+		}
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			pool = new ForkJoinPool(threads);
+			time = System.currentTimeMillis();
+			int res = minWeightPerfectMatching(candidates, n, pool);
+			System.out.println("sparse " + n + "x" + n + " with 51 candidates per row, " + threads + " threads: cost = " + res + ", " + (System.currentTimeMillis() - time) + " ms");
+			pool.shutdown();
+		}
+	}
+}
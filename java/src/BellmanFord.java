@@ -40,6 +40,32 @@ public class BellmanFord {
 		return updated == false;
 	}
 
+	public static boolean bellmanFord(CsrGraph g, int s, int[] dist, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(dist, INF);
+		dist[s] = 0;
+		int n = g.nodes;
+		boolean updated = false;
+		for (int step = 0; step < n; step++) {
+			updated = false;
+			for (int u = 0; u < n; u++) {
+				if (dist[u] == INF) continue;
+				for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+					int v = g.targets[e];
+					if (dist[v] > dist[u] + g.cost[e]) {
+						dist[v] = Math.max(dist[u] + g.cost[e], -INF);
+						pred[v] = u;
+						updated = true;
+					}
+				}
+			}
+			if (!updated)
+				break;
+		}
+		// if updated is true then a negative cycle exists
+		return updated == false;
+	}
+
 	public static int[] findNegativeCycle(List<Edge>[] graph) {
 		int n = graph.length;
 		int[] pred = new int[n];
@@ -77,6 +103,105 @@ public class BellmanFord {
 		return cycle;
 	}
 
+	// Queue-based Bellman-Ford (SPFA) with Tarjan's subtree disassembly, see
+	// http://www.cs.princeton.edu/courses/archive/spr06/cos423/Handouts/GoldbergCherkassky.pdf
+	// When dist[v] decreases, the subtree of v in the shortest path tree is removed and its vertices are not
+	// scanned until they improve again. A negative cycle exists as soon as the subtree contains the vertex
+	// relaxing v, so it is reported right after it forms.
+	public static boolean bellmanFordTarjan(List<Edge>[] graph, int s, int[] dist, int[] pred) {
+		return spfaTarjan(graph, s, dist, pred) == null;
+	}
+
+	public static int[] findNegativeCycleTarjan(List<Edge>[] graph) {
+		int n = graph.length;
+		return spfaTarjan(graph, -1, new int[n], new int[n]);
+	}
+
+	// s == -1 starts from a virtual source connected to all vertices with zero cost edges
+	static int[] spfaTarjan(List<Edge>[] graph, int s, int[] dist, int[] pred) {
+		int n = graph.length;
+		// shortest path tree as a circular list in preorder with depths, n is the root
+		int[] next = new int[n + 1];
+		int[] prev = new int[n + 1];
+		int[] depth = new int[n + 1];
+		boolean[] inTree = new boolean[n + 1];
+		boolean[] inQueue = new boolean[n];
+		int[] q = new int[n + 1];
+		int qh = 0;
+		int qt = 0;
+		Arrays.fill(pred, -1);
+		next[n] = prev[n] = n;
+		inTree[n] = true;
+		if (s == -1) {
+			Arrays.fill(dist, 0);
+			for (int v = 0; v < n; v++) {
+				link(v, n, next, prev, depth, inTree);
+				inQueue[v] = true;
+				q[qt++] = v;
+			}
+		} else {
+			Arrays.fill(dist, INF);
+			dist[s] = 0;
+			link(s, n, next, prev, depth, inTree);
+			inQueue[s] = true;
+			q[qt++] = s;
+		}
+		while (qh != qt) {
+			int u = q[qh];
+			qh = qh == n ? 0 : qh + 1;
+			inQueue[u] = false;
+			if (!inTree[u])
+				continue;
+			for (Edge e : graph[u]) {
+				int v = e.v;
+				if (dist[v] <= dist[u] + e.cost)
+					continue;
+				dist[v] = dist[u] + e.cost;
+				if (inTree[v]) {
+					if (v == u)
+						return new int[]{v};
+					int x = next[v];
+					for (; depth[x] > depth[v]; x = next[x]) {
+						if (x == u)
+							return restoreCycle(pred, u, v);
+						inTree[x] = false;
+					}
+					next[prev[v]] = x;
+					prev[x] = prev[v];
+				}
+				pred[v] = u;
+				link(v, u, next, prev, depth, inTree);
+				if (!inQueue[v]) {
+					inQueue[v] = true;
+					q[qt] = v;
+					qt = qt == n ? 0 : qt + 1;
+				}
+			}
+		}
+		return null;
+	}
+
+	// inserts v as the first child of parent
+	static void link(int v, int parent, int[] next, int[] prev, int[] depth, boolean[] inTree) {
+		next[v] = next[parent];
+		prev[next[parent]] = v;
+		next[parent] = v;
+		prev[v] = parent;
+		depth[v] = depth[parent] + 1;
+		inTree[v] = true;
+	}
+
+	// u is a descendant of v and the edge u -> v closes the cycle
+	static int[] restoreCycle(int[] pred, int u, int v) {
+		int cnt = 1;
+		for (int x = u; x != v; x = pred[x])
+			++cnt;
+		int[] cycle = new int[cnt];
+		for (int x = u; cnt > 0; x = pred[x])
+			cycle[--cnt] = x;
+		return cycle;
+	}
+
 	// Usage example
 	public static void main(String[] args) {
 		List<Edge>[] graph = Stream.generate(ArrayList::new).limit(4).toArray(List[]::new);
@@ -87,5 +212,35 @@ public class BellmanFord {
 		graph[3].add(new Edge(1, 1));
 		int[] cycle = findNegativeCycle(graph);
 		System.out.println(Arrays.toString(cycle));
+		System.out.println(Arrays.toString(findNegativeCycleTarjan(graph)));
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 10_000; step++) {
+			int n = rnd.nextInt(20) + 1;
+			List<Edge>[] g = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			int m = rnd.nextInt(50);
+			for (int i = 0; i < m; i++)
+				g[rnd.nextInt(n)].add(new Edge(rnd.nextInt(n), rnd.nextInt(30) - 5));
+			int[] dist1 = new int[n];
+			int[] dist2 = new int[n];
+			int[] pred = new int[n];
+			boolean ok1 = bellmanFord(g, 0, dist1, pred);
+			boolean ok2 = bellmanFordTarjan(g, 0, dist2, pred);
+			if (ok1 != ok2 || ok1 && !Arrays.equals(dist1, dist2))
+				throw new RuntimeException();
+			int[] c = findNegativeCycleTarjan(g);
+			if ((c == null) != (findNegativeCycle(g) == null))
+				throw new RuntimeException();
+			if (c != null) {
+				long len = 0;
+				for (int i = 0; i < c.length; i++) {
+					int u = c[i];
+					int v = c[(i + 1) % c.length];
+					len += g[u].stream().filter(e -> e.v == v).mapToInt(e -> e.cost).min().getAsInt();
+				}
+				if (len >= 0)
+					throw new RuntimeException();
+			}
+		}
 	}
 }
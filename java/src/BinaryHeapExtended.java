@@ -1,6 +1,6 @@
 // https://en.wikipedia.org/wiki/Binary_heap
 // invariant: heap[parent] <= heap[child]
-public class BinaryHeapExtended {
+public class BinaryHeapExtended implements AddressableHeap {
 	long[] heap;
 	int[] pos2Id;
 	int[] id2Pos;
@@ -39,6 +39,21 @@ public class BinaryHeapExtended {
 		}
 	}
 
+	@Override
+	public void decreaseKey(int id, long value) {
+		changePriority(id, value);
+	}
+
+	@Override
+	public int removeMin() {
+		return remove();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
 	public void remove(int id) {
 		int pos = id2Pos[id];
 		pos2Id[pos] = pos2Id[--size];
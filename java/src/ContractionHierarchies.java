@@ -1,11 +1,43 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * @author Andrey Naumenko
  */
 public class ContractionHierarchies {
 
-	public static class LayerGraph implements Cloneable {
+	// read access to a preprocessed graph for the queries, implemented by LayerGraph and by
+	// ContractionHierarchiesMapped.MappedLayerGraph
+	public interface QueryGraph {
+		int nodes();
+
+		int level(int vertex);
+
+		// dir == 0: last outgoing edge of vertex, dir == 1: last incoming edge
+		int tail(int dir, int vertex);
+
+		int prev(int dir, int edge);
+
+		int u(int edge);
+
+		int v(int edge);
+
+		int len(int edge);
+
+		int firstEdge(int edge);
+
+		int secondEdge(int edge);
+	}
+
+	public static class LayerGraph implements Cloneable, QueryGraph {
 		final int nodes;
 		int edges = 0;
 		final int[] levels;
@@ -94,6 +126,51 @@ public class ContractionHierarchies {
 			}
 			return g;
 		}
+
+		@Override
+		public int nodes() {
+			return nodes;
+		}
+
+		@Override
+		public int level(int vertex) {
+			return levels[vertex];
+		}
+
+		@Override
+		public int tail(int dir, int vertex) {
+			return tail[dir][vertex];
+		}
+
+		@Override
+		public int prev(int dir, int edge) {
+			return prev[dir][edge];
+		}
+
+		@Override
+		public int u(int edge) {
+			return u[edge];
+		}
+
+		@Override
+		public int v(int edge) {
+			return v[edge];
+		}
+
+		@Override
+		public int len(int edge) {
+			return len[edge];
+		}
+
+		@Override
+		public int firstEdge(int edge) {
+			return firstEdge[edge];
+		}
+
+		@Override
+		public int secondEdge(int edge) {
+			return secondEdge[edge];
+		}
 	}
 
 	private static List<Integer> findWitness(LayerGraph g, int s, int forbidden, int[] prio, boolean[] targets, int targetCount, int[] hops, int upperBound) {
@@ -145,7 +222,8 @@ public class ContractionHierarchies {
 		}
 	}
 
-	private static ShortcutsInfo addShortcuts(LayerGraph g, int v, boolean realRun, int[] prio, boolean[] targets, int[] hops, int[] degree, int[] originalEdges) {
+	// if shortcutList != null, found shortcuts are also collected there as {uv, vw} edge pairs
+	private static ShortcutsInfo addShortcuts(LayerGraph g, int v, boolean realRun, int[] prio, boolean[] targets, int[] hops, int[] degree, int[] originalEdges, List<int[]> shortcutList) {
 		int shortcuts = 0;
 		int totalOriginalEdges = 0;
 		for (int uv = g.tail[1][v]; uv != -1; uv = g.prev[1][uv]) {
@@ -187,6 +265,8 @@ public class ContractionHierarchies {
 				if (distuw > g.len[uv] + g.len[vw]) {
 					++shortcuts;
 					totalOriginalEdges += originalEdges[uv] + originalEdges[vw];
+					if (shortcutList != null)
+						shortcutList.add(new int[]{uv, vw});
 					if (realRun) {
 						int edge = g.addEdge(u, w, g.len[uv] + g.len[vw]);
 						originalEdges[edge] = originalEdges[uv] + originalEdges[vw];
@@ -206,7 +286,7 @@ public class ContractionHierarchies {
 	}
 
 	private static int calcPriority(LayerGraph g, int v, int[] prio, boolean[] targets, int[] hops, int[] degree, int[] originalEdges) {
-		ShortcutsInfo shortcutsInfo = addShortcuts(g, v, false, prio, targets, hops, degree, originalEdges);
+		ShortcutsInfo shortcutsInfo = addShortcuts(g, v, false, prio, targets, hops, degree, originalEdges, null);
 		int edgeDifference = shortcutsInfo.shortcuts - degree[v];
 		int contractedNeighbors = 0;
 		for (int vw = g.tail[0][v]; vw != -1; vw = g.prev[0][vw])
@@ -249,7 +329,7 @@ public class ContractionHierarchies {
 				continue;
 			}
 			g.levels[v] = i;
-			addShortcuts(g, v, true, prio, targets, hops, degree, originalEdges);
+			addShortcuts(g, v, true, prio, targets, hops, degree, originalEdges, null);
 
 			for (int edge = g.tail[0][v]; edge != -1; edge = g.prev[0][edge]) {
 				int w = g.v[edge];
@@ -266,24 +346,149 @@ public class ContractionHierarchies {
 		return g;
 	}
 
-	private static List<Integer> extractEdges(LayerGraph g, int edge) {
-		if (g.firstEdge[edge] == -1) // edge is not a shortcut
+	private static class WitnessBuffers {
+		final int[] prio;
+		final boolean[] targets;
+		final int[] hops;
+
+		WitnessBuffers(int nodes) {
+			prio = new int[nodes];
+			targets = new boolean[nodes];
+			hops = new int[nodes];
+			Arrays.fill(prio, Integer.MAX_VALUE);
+		}
+	}
+
+	// runs body(buffers[c], i) for i in [0, size), split into one contiguous chunk c per buffer
+	private static <T> void forEachChunk(ForkJoinPool pool, T[] buffers, int size, ObjIntConsumer<T> body) {
+		int chunks = buffers.length;
+		pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+			int to = (int) ((long) size * (c + 1) / chunks);
+			for (int i = (int) ((long) size * c / chunks); i < to; i++)
+				body.accept(buffers[c], i);
+		})).join();
+	}
+
+	// tie-breaking by a hash of the id avoids long chains of equal priorities along vertex numbering
+	private static boolean precedes(int[] priority, int a, int b) {
+		return priority[a] != priority[b] ? priority[a] < priority[b] : a * 0x9E3779B9 < b * 0x9E3779B9;
+	}
+
+	private static boolean isLocalMinimum(LayerGraph g, int v, int[] priority) {
+		for (int edge = g.tail[0][v]; edge != -1; edge = g.prev[0][edge]) {
+			int w = g.v[edge];
+			if (w != v && g.levels[w] == Integer.MAX_VALUE && precedes(priority, w, v))
+				return false;
+		}
+		for (int edge = g.tail[1][v]; edge != -1; edge = g.prev[1][edge]) {
+			int u = g.u[edge];
+			if (u != v && g.levels[u] == Integer.MAX_VALUE && precedes(priority, u, v))
+				return false;
+		}
+		return true;
+	}
+
+	public static LayerGraph preprocessParallel(LayerGraph origGraph) {
+		return preprocessParallel(origGraph, ForkJoinPool.commonPool());
+	}
+
+	// Each round contracts the uncontracted vertices whose priority is minimal among their uncontracted
+	// neighbors. Such vertices are pairwise non-adjacent, so their witness searches run concurrently against
+	// the same graph state (every thread has its own buffers) and the found shortcuts are inserted afterwards.
+	public static LayerGraph preprocessParallel(LayerGraph origGraph, ForkJoinPool pool) {
+		LayerGraph g = (LayerGraph) origGraph.clone();
+		int n = g.nodes;
+		// one set of witness search buffers per chunk, owned by this call
+		WitnessBuffers[] buffers = new WitnessBuffers[pool.getParallelism()];
+		for (int c = 0; c < buffers.length; c++)
+			buffers[c] = new WitnessBuffers(n);
+		int[] degree = new int[n];
+		for (int e = 0; e < g.edges; e++) {
+			++degree[g.u[e]];
+			++degree[g.v[e]];
+		}
+		int[] originalEdges = new int[g.len.length];
+		Arrays.fill(originalEdges, 0, g.edges, 1);
+		Arrays.fill(g.levels, Integer.MAX_VALUE);
+
+		int[] priority = new int[n];
+		int[] remaining = IntStream.range(0, n).toArray();
+		forEachChunk(pool, buffers, n, (b, v) -> priority[v] = calcPriority(g, v, b.prio, b.targets, b.hops, degree, originalEdges));
+
+		int[] mark = new int[n];
+		int[] neighbors = new int[n];
+		int level = 0;
+		for (int round = 1; remaining.length > 0; round++) {
+			int[] rem = remaining;
+			int[] selected = pool.submit(() -> IntStream.of(rem).parallel().filter(v -> isLocalMinimum(g, v, priority)).toArray()).join();
+			for (int v : selected)
+				g.levels[v] = level++;
+
+			List<int[]>[] shortcuts = new List[selected.length];
+			forEachChunk(pool, buffers, selected.length, (b, i) -> {
+				shortcuts[i] = new ArrayList<>();
+				addShortcuts(g, selected[i], false, b.prio, b.targets, b.hops, degree, originalEdges, shortcuts[i]);
+			});
+
+			for (List<int[]> list : shortcuts) {
+				for (int[] shortcut : list) {
+					int uv = shortcut[0];
+					int vw = shortcut[1];
+					int u = g.u[uv];
+					int w = g.v[vw];
+					int len = g.len[uv] + g.len[vw];
+					int edge = g.addEdge(u, w, len);
+					++degree[u];
+					++degree[w];
+					// an existing shorter edge keeps its own unpacking
+					if (g.len[edge] == len) {
+						originalEdges[edge] = originalEdges[uv] + originalEdges[vw];
+						g.firstEdge[edge] = uv;
+						g.secondEdge[edge] = vw;
+					}
+				}
+			}
+
+			int cnt = 0;
+			for (int v : selected) {
+				for (int dir = 0; dir < 2; dir++) {
+					for (int edge = g.tail[dir][v]; edge != -1; edge = g.prev[dir][edge]) {
+						int w = dir == 0 ? g.v[edge] : g.u[edge];
+						if (g.levels[w] == Integer.MAX_VALUE && mark[w] != round) {
+							mark[w] = round;
+							neighbors[cnt++] = w;
+						}
+					}
+				}
+			}
+			int[] updated = Arrays.copyOf(neighbors, cnt);
+			forEachChunk(pool, buffers, updated.length, (b, i) -> {
+				int v = updated[i];
+				priority[v] = calcPriority(g, v, b.prio, b.targets, b.hops, degree, originalEdges);
+			});
+			remaining = IntStream.of(remaining).filter(v -> g.levels[v] == Integer.MAX_VALUE).toArray();
+		}
+		return g;
+	}
+
+	private static List<Integer> extractEdges(QueryGraph g, int edge) {
+		if (g.firstEdge(edge) == -1) // edge is not a shortcut
 			return Collections.singletonList(edge);
 		List<Integer> res = new ArrayList<>();
-		res.addAll(extractEdges(g, g.firstEdge[edge]));
-		res.addAll(extractEdges(g, g.secondEdge[edge]));
+		res.addAll(extractEdges(g, g.firstEdge(edge)));
+		res.addAll(extractEdges(g, g.secondEdge(edge)));
 		return res;
 	}
 
-	private static List<Integer> buildPath(LayerGraph g, int[][] pred, int top) {
+	private static List<Integer> buildPath(QueryGraph g, int[][] pred, int top) {
 		List<Integer> path = new ArrayList<>();
-		for (int edge0 = pred[0][top]; edge0 != -1; edge0 = pred[0][g.u[edge0]]) {
+		for (int edge0 = pred[0][top]; edge0 != -1; edge0 = pred[0][g.u(edge0)]) {
 			List<Integer> p = extractEdges(g, edge0);
 			Collections.reverse(p);
 			path.addAll(p);
 		}
 		Collections.reverse(path);
-		for (int edge1 = pred[1][top]; edge1 != -1; edge1 = pred[1][g.v[edge1]])
+		for (int edge1 = pred[1][top]; edge1 != -1; edge1 = pred[1][g.v(edge1)])
 			path.addAll(extractEdges(g, edge1));
 		return path;
 	}
@@ -298,13 +503,13 @@ public class ContractionHierarchies {
 		}
 	}
 
-	public static PathInfo shortestPath(LayerGraph g, int s, int t) {
-		int[][] prio = {new int[g.nodes], new int[g.nodes]};
+	public static PathInfo shortestPath(QueryGraph g, int s, int t) {
+		int[][] prio = {new int[g.nodes()], new int[g.nodes()]};
 		Arrays.fill(prio[0], Integer.MAX_VALUE / 2);
 		Arrays.fill(prio[1], Integer.MAX_VALUE / 2);
 		prio[0][s] = 0;
 		prio[1][t] = 0;
-		int[][] pred = {new int[g.nodes], new int[g.nodes]};
+		int[][] pred = {new int[g.nodes()], new int[g.nodes()]};
 		Arrays.fill(pred[0], -1);
 		Arrays.fill(pred[1], -1);
 		PriorityQueue<Long>[] q = new PriorityQueue[]{new PriorityQueue<Long>(), new PriorityQueue<Long>()};
@@ -322,8 +527,8 @@ public class ContractionHierarchies {
 				continue;
 
 			// stall-on-demand
-			for (int edge = g.tail[1 - dir][u]; edge != -1; edge = g.prev[1 - dir][edge])
-				if (prio[dir][u] > prio[dir][dir == 0 ? g.u[edge] : g.v[edge]] + g.len[edge])
+			for (int edge = g.tail(1 - dir, u); edge != -1; edge = g.prev(1 - dir, edge))
+				if (prio[dir][u] > prio[dir][dir == 0 ? g.u(edge) : g.v(edge)] + g.len(edge))
 					continue m1;
 
 			int curLen = prio[dir][u] + prio[1 - dir][u];
@@ -332,11 +537,11 @@ public class ContractionHierarchies {
 				top = u;
 			}
 
-			for (int edge = g.tail[dir][u]; edge != -1; edge = g.prev[dir][edge]) {
-				int v = dir == 0 ? g.v[edge] : g.u[edge];
-				if (g.levels[v] < g.levels[u])
+			for (int edge = g.tail(dir, u); edge != -1; edge = g.prev(dir, edge)) {
+				int v = dir == 0 ? g.v(edge) : g.u(edge);
+				if (g.level(v) < g.level(u))
 					continue;
-				int nprio = prio[dir][u] + g.len[edge];
+				int nprio = prio[dir][u] + g.len(edge);
 				if (prio[dir][v] > nprio) {
 					prio[dir][v] = nprio;
 					pred[dir][v] = edge;
@@ -348,10 +553,10 @@ public class ContractionHierarchies {
 		return new PathInfo(res, buildPath(g, pred, top));
 	}
 
-	public static int[][] manyToMany(LayerGraph g, int[] s, int[] t) {
-		List<Long> bucketLists[] = new List[g.nodes];
+	public static int[][] manyToMany(QueryGraph g, int[] s, int[] t) {
+		List<Long> bucketLists[] = new List[g.nodes()];
 
-		int[] prio = new int[g.nodes];
+		int[] prio = new int[g.nodes()];
 		Arrays.fill(prio, Integer.MAX_VALUE / 2);
 
 		for (int i = 0; i < t.length; i++) {
@@ -370,19 +575,19 @@ public class ContractionHierarchies {
 					continue;
 
 				// stall-on-demand
-				for (int edge = g.tail[0][u]; edge != -1; edge = g.prev[0][edge])
-					if (prio[u] > prio[g.v[edge]] + g.len[edge])
+				for (int edge = g.tail(0, u); edge != -1; edge = g.prev(0, edge))
+					if (prio[u] > prio[g.v(edge)] + g.len(edge))
 						continue m1;
 
 				if (bucketLists[u] == null)
 					bucketLists[u] = new ArrayList<Long>(1);
 				bucketLists[u].add(((long) priou << 32) | i);
 
-				for (int edge = g.tail[1][u]; edge != -1; edge = g.prev[1][edge]) {
-					int v = g.u[edge];
+				for (int edge = g.tail(1, u); edge != -1; edge = g.prev(1, edge)) {
+					int v = g.u(edge);
 //					if (g.levels[v] < g.levels[u])
 //						continue;
-					int nprio = priou + g.len[edge];
+					int nprio = priou + g.len(edge);
 					if (prio[v] > nprio) {
 						prio[v] = nprio;
 						visited.add(v);
@@ -397,8 +602,8 @@ public class ContractionHierarchies {
 
 		int[][] d = new int[s.length][t.length];
 
-		long[][] buckets = new long[g.nodes][];
-		for (int i = 0; i < g.nodes; i++) {
+		long[][] buckets = new long[g.nodes()][];
+		for (int i = 0; i < g.nodes(); i++) {
 			int cnt = bucketLists[i] == null ? 0 : bucketLists[i].size();
 			buckets[i] = new long[cnt];
 			for (int j = 0; j < cnt; j++)
@@ -422,8 +627,8 @@ public class ContractionHierarchies {
 					continue;
 
 				// stall-on-demand
-				for (int edge = g.tail[1][u]; edge != -1; edge = g.prev[1][edge])
-					if (prio[u] > prio[g.u[edge]] + g.len[edge])
+				for (int edge = g.tail(1, u); edge != -1; edge = g.prev(1, edge))
+					if (prio[u] > prio[g.u(edge)] + g.len(edge))
 						continue m1;
 
 				for (long x : buckets[u]) {
@@ -432,11 +637,11 @@ public class ContractionHierarchies {
 					d[i][j] = Math.min(d[i][j], priou + priov);
 				}
 
-				for (int edge = g.tail[0][u]; edge != -1; edge = g.prev[0][edge]) {
-					int v = g.v[edge];
+				for (int edge = g.tail(0, u); edge != -1; edge = g.prev(0, edge)) {
+					int v = g.v(edge);
 //					if (g.levels[v] < g.levels[u])
 //						continue;
-					int nprio = priou + g.len[edge];
+					int nprio = priou + g.len(edge);
 					if (prio[v] > nprio) {
 						prio[v] = nprio;
 						visited.add(v);
@@ -452,7 +657,121 @@ public class ContractionHierarchies {
 		return d;
 	}
 
-	public static void main(String[] args) {
+	public interface RowConsumer {
+		// called concurrently from worker threads, row[j] is the distance from s[i] to t[j]
+		void accept(int i, int[] row);
+	}
+
+	// upward search of the compacted graph: dir == 0 follows outgoing edges, dir == 1 incoming ones
+	// returns vertices that were not stalled as (dist << 32) | vertex, prio is restored on return
+	private static long[] upwardSearch(LayerGraph g, int source, int dir, int[] prio) {
+		prio[source] = 0;
+		List<Integer> visited = new ArrayList<>();
+		visited.add(source);
+		List<Long> settled = new ArrayList<>();
+		PriorityQueue<Long> q = new PriorityQueue<>();
+		q.add((long) source);
+		m1:
+		while (!q.isEmpty()) {
+			long cur = q.remove();
+			int u = (int) cur;
+			int priou = prio[u];
+			if (cur >>> 32 != priou)
+				continue;
+
+			// stall-on-demand
+			for (int edge = g.tail[1 - dir][u]; edge != -1; edge = g.prev[1 - dir][edge])
+				if (priou > prio[dir == 0 ? g.u[edge] : g.v[edge]] + g.len[edge])
+					continue m1;
+
+			settled.add(((long) priou << 32) | u);
+
+			for (int edge = g.tail[dir][u]; edge != -1; edge = g.prev[dir][edge]) {
+				int v = dir == 0 ? g.v[edge] : g.u[edge];
+				int nprio = priou + g.len[edge];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					visited.add(v);
+					q.add(((long) nprio << 32) | v);
+				}
+			}
+		}
+		for (int v : visited) {
+			prio[v] = Integer.MAX_VALUE / 2;
+		}
+		long[] res = new long[settled.size()];
+		for (int i = 0; i < res.length; i++)
+			res[i] = settled.get(i);
+		return res;
+	}
+
+	public static void manyToMany(LayerGraph g, int[] s, int[] t, RowConsumer out) {
+		manyToMany(g, s, t, out, ForkJoinPool.commonPool());
+	}
+
+	// same as manyToMany(g, s, t) on a compacted graph, but backward searches, forward searches and bucket scans
+	// run in parallel, and every row goes to out as soon as it is ready instead of being kept in a dense matrix
+	public static void manyToMany(LayerGraph g, int[] s, int[] t, RowConsumer out, ForkJoinPool pool) {
+		int n = g.nodes;
+		// one prio array per chunk, owned by this call
+		int[][] prios = new int[pool.getParallelism()][n];
+		for (int[] prio : prios)
+			Arrays.fill(prio, Integer.MAX_VALUE / 2);
+		long[][] spaces = new long[t.length][];
+		forEachChunk(pool, prios, t.length, (prio, j) -> spaces[j] = upwardSearch(g, t[j], 1, prio));
+
+		// buckets in CSR layout: entries of vertex u are buckets[bucketStart[u]..bucketStart[u + 1])
+		int[] bucketStart = new int[n + 1];
+		for (long[] space : spaces)
+			for (long x : space)
+				++bucketStart[(int) x + 1];
+		for (int i = 0; i < n; i++)
+			bucketStart[i + 1] += bucketStart[i];
+		long[] buckets = new long[bucketStart[n]];
+		int[] pos = Arrays.copyOf(bucketStart, n);
+		for (int j = 0; j < t.length; j++) {
+			for (long x : spaces[j])
+				buckets[pos[(int) x]++] = (x & 0xFFFFFFFF00000000L) | j;
+			spaces[j] = null;
+		}
+
+		forEachChunk(pool, prios, s.length, (prio, i) -> {
+			int[] row = new int[t.length];
+			Arrays.fill(row, Integer.MAX_VALUE - 1);
+			for (long x : upwardSearch(g, s[i], 0, prio)) {
+				int u = (int) x;
+				int priou = (int) (x >>> 32);
+				for (int b = bucketStart[u]; b < bucketStart[u + 1]; b++) {
+					int j = (int) buckets[b];
+					row[j] = Math.min(row[j], priou + (int) (buckets[b] >>> 32));
+				}
+			}
+			out.accept(i, row);
+		});
+	}
+
+	// writes the s.length x t.length matrix as little-endian ints in row-major order to a memory-mapped file,
+	// so matrices larger than the heap can be computed
+	public static void manyToMany(LayerGraph g, int[] s, int[] t, Path file) throws IOException {
+		long rowBytes = 4L * t.length;
+		int rowsPerSegment = (int) Math.max(1, Math.min(s.length, (1 << 30) / Math.max(1, rowBytes)));
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			IntBuffer[] segments = new IntBuffer[(s.length + rowsPerSegment - 1) / rowsPerSegment];
+			for (int k = 0; k < segments.length; k++) {
+				long rows = Math.min(rowsPerSegment, s.length - (long) k * rowsPerSegment);
+				segments[k] = ch.map(FileChannel.MapMode.READ_WRITE, k * rowsPerSegment * rowBytes, rows * rowBytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+			// absolute puts into disjoint ranges are safe from several threads
+			manyToMany(g, s, t, (i, row) -> {
+				IntBuffer segment = segments[i / rowsPerSegment];
+				int offset = (i % rowsPerSegment) * t.length;
+				for (int j = 0; j < row.length; j++)
+					segment.put(offset + j, row[j]);
+			});
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
 		long time = System.currentTimeMillis();
 		Random rnd = new Random(1);
 		int totalShortcuts = 0;
@@ -494,28 +813,92 @@ public class ContractionHierarchies {
 			time1 = System.currentTimeMillis();
 			int[][] d2 = manyToMany(g.compact(), vertices, vertices);
 //			System.out.println("2 " + (System.currentTimeMillis() - time1));
+			LayerGraph gp = preprocessParallel(origGraph);
+			int[][] d3 = manyToMany(gp.compact(), vertices, vertices);
+			int[][] d4 = new int[V][];
+			manyToMany(g.compact(), vertices, vertices, (i, row) -> d4[i] = row);
+			if (!Arrays.deepEquals(d2, d4))
+				throw new RuntimeException();
 
 			for (int step1 = 0; step1 < 10; step1++) {
 				int a = rnd.nextInt(V);
 				int b = rnd.nextInt(V);
 
 				int res3 = d2[a][b];
-				PathInfo pathInfo = shortestPath(g, a, b);
-				int res0 = 0;
-				int prev = -1;
-				for (int edge : pathInfo.edges) {
-					res0 += g.len[edge];
-					if (prev != -1 && prev != g.u[edge]) throw new RuntimeException();
-					prev = g.v[edge];
-				}
-				int res1 = pathInfo.len;
 				int res2 = d[a][b];
-				if (res0 != res1 || res0 != res2 || res0 != res3)
-					throw new RuntimeException(res0 + " " + res1 + " " + res2 + " " + res3);
+				for (LayerGraph h : new LayerGraph[]{g, gp}) {
+					PathInfo pathInfo = shortestPath(h, a, b);
+					int res0 = 0;
+					int prev = -1;
+					for (int edge : pathInfo.edges) {
+						res0 += h.len[edge];
+						if (prev != -1 && prev != h.u[edge]) throw new RuntimeException();
+						prev = h.v[edge];
+					}
+					int res1 = pathInfo.len;
+					if (res0 != res1 || res0 != res2 || res0 != res3 || res0 != d3[a][b])
+						throw new RuntimeException(res0 + " " + res1 + " " + res2 + " " + res3 + " " + d3[a][b]);
+				}
 			}
 		}
 		System.out.println("totalShortcuts = " + totalShortcuts);
 		System.out.println("time = " + (System.currentTimeMillis() - time));
+
+		testManyToManyFile(rnd);
+		benchmarkPreprocess(rnd);
+	}
+
+	static void testManyToManyFile(Random rnd) throws IOException {
+		int V = 50;
+		int[][] d = generateStronglyConnectedDigraph(V, 5 * V, rnd);
+		LayerGraph origGraph = new LayerGraph(V, 100000);
+		for (int i = 0; i < V; i++)
+			for (int j = 0; j < V; j++)
+				if (i != j && d[i][j] != Integer.MAX_VALUE / 2)
+					origGraph.addEdge(i, j, d[i][j]);
+		LayerGraph g = preprocess(origGraph).compact();
+		int[] s = rnd.ints(30, 0, V).toArray();
+		int[] t = rnd.ints(20, 0, V).toArray();
+		int[][] expected = manyToMany(g, s, t);
+		Path file = Files.createTempFile("matrix", ".bin");
+		manyToMany(g, s, t, file);
+		IntBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		for (int i = 0; i < s.length; i++)
+			for (int j = 0; j < t.length; j++)
+				if (buf.get(i * t.length + j) != expected[i][j])
+					throw new RuntimeException();
+		Files.delete(file);
+	}
+
+	static void benchmarkPreprocess(Random rnd) {
+		int side = 100;
+		int V = side * side;
+		LayerGraph origGraph = new LayerGraph(V, 40 * V);
+		for (int i = 0; i < side; i++) {
+			for (int j = 0; j < side; j++) {
+				if (i + 1 < side) {
+					origGraph.addEdge(i * side + j, (i + 1) * side + j, rnd.nextInt(100) + 1);
+					origGraph.addEdge((i + 1) * side + j, i * side + j, rnd.nextInt(100) + 1);
+				}
+				if (j + 1 < side) {
+					origGraph.addEdge(i * side + j, i * side + j + 1, rnd.nextInt(100) + 1);
+					origGraph.addEdge(i * side + j + 1, i * side + j, rnd.nextInt(100) + 1);
+				}
+			}
+		}
+		long time = System.currentTimeMillis();
+		LayerGraph g1 = preprocess(origGraph);
+		long time1 = System.currentTimeMillis();
+		LayerGraph g2 = preprocessParallel(origGraph);
+		long time2 = System.currentTimeMillis();
+		System.out.println("grid " + side + "x" + side + ": serial preprocess = " + (time1 - time) + " ms, " + (g1.edges - origGraph.edges) + " shortcuts; parallel preprocess = "
+				+ (time2 - time1) + " ms, " + (g2.edges - origGraph.edges) + " shortcuts, threads = " + ForkJoinPool.commonPool().getParallelism());
+		for (int step = 0; step < 100; step++) {
+			int a = rnd.nextInt(V);
+			int b = rnd.nextInt(V);
+			if (shortestPath(g1, a, b).len != shortestPath(g2, a, b).len)
+				throw new RuntimeException();
+		}
 	}
 
 	static void debug(LayerGraph g) {
@@ -0,0 +1,291 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded thread-safe cache of ContractionHierarchies.shortestPath results keyed by (s << 32) | t.
+// The cache is split into segments with their own lock, each segment is an open addressing table with linear
+// probing and CLOCK (second chance) eviction. Paths are stored as int arrays of edge ids.
+// Results are bound to the graph passed last: a different LayerGraph (e.g. after preprocess() ran again)
+// drops all entries. After modifying a graph in place (e.g. CustomizableContractionHierarchies.customize)
+// call invalidate().
+public class ContractionHierarchiesCache {
+
+	static final int SEGMENTS = 16;
+
+	final Segment[] segments = new Segment[SEGMENTS];
+	// the graph and its generation are published together, a lookup works on one snapshot
+	volatile Version version = new Version(null, 0);
+	final LongAdder hits = new LongAdder();
+	final LongAdder misses = new LongAdder();
+	final LongAdder evictions = new LongAdder();
+
+	public ContractionHierarchiesCache(int capacity) {
+		for (int i = 0; i < SEGMENTS; i++)
+			segments[i] = new Segment(Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS));
+	}
+
+	static class Version {
+		final ContractionHierarchies.LayerGraph graph;
+		final int generation;
+
+		Version(ContractionHierarchies.LayerGraph graph, int generation) {
+			this.graph = graph;
+			this.generation = generation;
+		}
+	}
+
+	public ContractionHierarchies.PathInfo shortestPath(ContractionHierarchies.LayerGraph g, int s, int t) {
+		Version v = version;
+		if (g != v.graph) {
+			synchronized (this) {
+				v = version;
+				if (g != v.graph)
+					version = v = new Version(g, v.generation + 1);
+			}
+		}
+		int gen = v.generation;
+		long key = ((long) s << 32) | (t & 0xFFFFFFFFL);
+		long h = key * 0x9E3779B97F4A7C15L;
+		Segment segment = segments[(int) (h >>> 60) & (SEGMENTS - 1)];
+		ContractionHierarchies.PathInfo res = segment.get(key, h, gen);
+		if (res != null) {
+			hits.increment();
+			return res;
+		}
+		misses.increment();
+		res = ContractionHierarchies.shortestPath(g, s, t);
+		int[] edges = new int[res.edges.size()];
+		for (int i = 0; i < edges.length; i++)
+			edges[i] = res.edges.get(i);
+		if (segment.put(key, h, gen, res.len, edges))
+			evictions.increment();
+		return res;
+	}
+
+	public void invalidate() {
+		synchronized (this) {
+			version = new Version(version.graph, version.generation + 1);
+		}
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	static class Segment {
+		final int capacity;
+		final int mask;
+		final long[] keys;
+		final int[] lens;
+		final int[][] paths;
+		final boolean[] referenced;
+		int size;
+		int hand;
+		int generation;
+
+		Segment(int capacity) {
+			this.capacity = capacity;
+			int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+			mask = tableSize - 1;
+			keys = new long[tableSize];
+			lens = new int[tableSize];
+			paths = new int[tableSize][];
+			referenced = new boolean[tableSize];
+		}
+
+		// drops everything stored for an older generation
+		void sync(int gen) {
+			if (generation != gen) {
+				generation = gen;
+				Arrays.fill(paths, null);
+				Arrays.fill(referenced, false);
+				size = 0;
+			}
+		}
+
+		synchronized ContractionHierarchies.PathInfo get(long key, long h, int gen) {
+			// a caller with an outdated generation must not roll the segment back
+			if (gen < generation)
+				return null;
+			sync(gen);
+			for (int i = (int) h & mask; paths[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) {
+					referenced[i] = true;
+					return new ContractionHierarchies.PathInfo(lens[i], asList(paths[i]));
+				}
+			}
+			return null;
+		}
+
+		// returns true if an entry was evicted
+		synchronized boolean put(long key, long h, int gen, int len, int[] path) {
+			if (gen != generation) {
+				if (gen < generation)
+					return false;
+				sync(gen);
+			}
+			int i = (int) h & mask;
+			for (; paths[i] != null; i = (i + 1) & mask)
+				if (keys[i] == key)
+					return false;
+			boolean evicted = false;
+			if (size == capacity) {
+				evict();
+				evicted = true;
+				for (i = (int) h & mask; paths[i] != null; i = (i + 1) & mask)
+					;
+			}
+			keys[i] = key;
+			lens[i] = len;
+			paths[i] = path;
+			referenced[i] = false;
+			++size;
+			return evicted;
+		}
+
+		void evict() {
+			while (true) {
+				hand = (hand + 1) & mask;
+				if (paths[hand] == null)
+					continue;
+				if (referenced[hand]) {
+					referenced[hand] = false;
+					continue;
+				}
+				remove(hand);
+				return;
+			}
+		}
+
+		// backward shift deletion keeps probe sequences intact without tombstones
+		void remove(int i) {
+			--size;
+			for (int j = (i + 1) & mask; paths[j] != null; j = (j + 1) & mask) {
+				int home = (int) (keys[j] * 0x9E3779B97F4A7C15L) & mask;
+				if (((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i] = keys[j];
+					lens[i] = lens[j];
+					paths[i] = paths[j];
+					referenced[i] = referenced[j];
+					i = j;
+				}
+			}
+			paths[i] = null;
+			referenced[i] = false;
+		}
+	}
+
+	static List<Integer> asList(int[] a) {
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				return a[index];
+			}
+
+			@Override
+			public int size() {
+				return a.length;
+			}
+		};
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		int V = 100;
+		ContractionHierarchies.LayerGraph g = null;
+		ContractionHierarchiesCache cache = new ContractionHierarchiesCache(200);
+		for (int step = 0; step < 5; step++) {
+			int[][] d = ContractionHierarchies.generateStronglyConnectedDigraph(V, 5 * V, rnd);
+			ContractionHierarchies.LayerGraph origGraph = new ContractionHierarchies.LayerGraph(V, 100000);
+			for (int i = 0; i < V; i++)
+				for (int j = 0; j < V; j++)
+					if (i != j && d[i][j] != Integer.MAX_VALUE / 2)
+						origGraph.addEdge(i, j, d[i][j]);
+			g = ContractionHierarchies.preprocess(origGraph);
+			for (int query = 0; query < 10000; query++) {
+				// skewed pairs so that some are repeated often
+				int s = (int) (V * Math.pow(rnd.nextDouble(), 3));
+				int t = (int) (V * Math.pow(rnd.nextDouble(), 3));
+				ContractionHierarchies.PathInfo expected = ContractionHierarchies.shortestPath(g, s, t);
+				ContractionHierarchies.PathInfo actual = cache.shortestPath(g, s, t);
+				if (expected.len != actual.len || !expected.edges.equals(actual.edges))
+					throw new RuntimeException();
+			}
+		}
+		System.out.println("hits = " + cache.hits() + " misses = " + cache.misses() + " evictions = " + cache.evictions());
+
+		ContractionHierarchies.LayerGraph graph = g;
+		Thread[] threads = new Thread[4];
+		for (int k = 0; k < threads.length; k++) {
+			threads[k] = new Thread(() -> {
+				Random r = new Random();
+				for (int query = 0; query < 10000; query++) {
+					int s = r.nextInt(20);
+					int t = r.nextInt(20);
+					if (cache.shortestPath(graph, s, t).len != ContractionHierarchies.shortestPath(graph, s, t).len)
+						throw new RuntimeException();
+				}
+			});
+			threads[k].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		// threads switch between two graphs and one invalidates, a path must never come from the other graph
+		ContractionHierarchies.LayerGraph[] graphs = new ContractionHierarchies.LayerGraph[2];
+		for (int k = 0; k < 2; k++) {
+			int[][] d = ContractionHierarchies.generateStronglyConnectedDigraph(V, 5 * V, rnd);
+			ContractionHierarchies.LayerGraph origGraph = new ContractionHierarchies.LayerGraph(V, 100000);
+			for (int i = 0; i < V; i++)
+				for (int j = 0; j < V; j++)
+					if (i != j && d[i][j] != Integer.MAX_VALUE / 2)
+						origGraph.addEdge(i, j, d[i][j]);
+			graphs[k] = ContractionHierarchies.preprocess(origGraph);
+		}
+		ContractionHierarchiesCache shared = new ContractionHierarchiesCache(200);
+		java.util.concurrent.atomic.AtomicBoolean failed = new java.util.concurrent.atomic.AtomicBoolean();
+		threads = new Thread[5];
+		for (int k = 0; k < threads.length; k++) {
+			int id = k;
+			threads[k] = new Thread(() -> {
+				Random r = new Random(id);
+				for (int query = 0; query < 20000; query++) {
+					if (id == 0) {
+						shared.invalidate();
+						continue;
+					}
+					ContractionHierarchies.LayerGraph cur = graphs[r.nextInt(2)];
+					int s = r.nextInt(20);
+					int t = r.nextInt(20);
+					ContractionHierarchies.PathInfo expected = ContractionHierarchies.shortestPath(cur, s, t);
+					ContractionHierarchies.PathInfo actual = shared.shortestPath(cur, s, t);
+					if (expected.len != actual.len || !expected.edges.equals(actual.edges))
+						failed.set(true);
+				}
+			});
+			threads[k].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		if (failed.get())
+			throw new RuntimeException();
+	}
+}
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Binary format of a preprocessed ContractionHierarchies.LayerGraph and queries answered directly from the memory
+ * mapped file. Mapped pages live in the OS page cache, so loading takes no time and several JVMs share them.
+ * <p>
+ * Layout (little-endian ints): MAGIC, VERSION, nodes, edges, then the arrays levels[nodes], tail0[nodes],
+ * tail1[nodes], len[edges], u[edges], v[edges], firstEdge[edges], secondEdge[edges], prev0[edges], prev1[edges]
+ * of the compacted graph. Every array is mapped separately, so each of them may take up to 2GB.
+ */
+public class ContractionHierarchiesMapped {
+
+	static final int MAGIC = 0x43484746;
+	static final int VERSION = 1;
+	static final int HEADER_INTS = 4;
+
+	public static class MappedLayerGraph implements ContractionHierarchies.QueryGraph {
+		public final int nodes;
+		public final int edges;
+		final IntBuffer levels;
+		final IntBuffer[] tail;
+		final IntBuffer len;
+		final IntBuffer u;
+		final IntBuffer v;
+		final IntBuffer firstEdge;
+		final IntBuffer secondEdge;
+		final IntBuffer[] prev;
+
+		MappedLayerGraph(int nodes, int edges, IntBuffer[] arrays) {
+			this.nodes = nodes;
+			this.edges = edges;
+			levels = arrays[0];
+			tail = new IntBuffer[]{arrays[1], arrays[2]};
+			len = arrays[3];
+			u = arrays[4];
+			v = arrays[5];
+			firstEdge = arrays[6];
+			secondEdge = arrays[7];
+			prev = new IntBuffer[]{arrays[8], arrays[9]};
+		}
+
+		@Override
+		public int nodes() {
+			return nodes;
+		}
+
+		@Override
+		public int level(int vertex) {
+			return levels.get(vertex);
+		}
+
+		@Override
+		public int tail(int dir, int vertex) {
+			return tail[dir].get(vertex);
+		}
+
+		@Override
+		public int prev(int dir, int edge) {
+			return prev[dir].get(edge);
+		}
+
+		@Override
+		public int u(int edge) {
+			return u.get(edge);
+		}
+
+		@Override
+		public int v(int edge) {
+			return v.get(edge);
+		}
+
+		@Override
+		public int len(int edge) {
+			return len.get(edge);
+		}
+
+		@Override
+		public int firstEdge(int edge) {
+			return firstEdge.get(edge);
+		}
+
+		@Override
+		public int secondEdge(int edge) {
+			return secondEdge.get(edge);
+		}
+	}
+
+	public static void save(ContractionHierarchies.LayerGraph preprocessed, Path file) throws IOException {
+		ContractionHierarchies.LayerGraph g = preprocessed.compact();
+		int[][] arrays = {g.levels, g.tail[0], g.tail[1], g.len, g.u, g.v, g.firstEdge, g.secondEdge, g.prev[0], g.prev[1]};
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_INTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(g.nodes).putInt(g.edges).flip();
+			writeFully(ch, header);
+			ByteBuffer buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+			for (int[] a : arrays) {
+				int size = a == g.levels || a == g.tail[0] || a == g.tail[1] ? g.nodes : g.edges;
+				for (int i = 0; i < size; i++) {
+					if (!buf.hasRemaining()) {
+						buf.flip();
+						writeFully(ch, buf);
+						buf.clear();
+					}
+					buf.putInt(a[i]);
+				}
+			}
+			buf.flip();
+			writeFully(ch, buf);
+		}
+	}
+
+	static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining())
+			ch.write(buf);
+	}
+
+	// the mapping stays valid after the channel is closed
+	public static MappedLayerGraph load(Path file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			IntBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_INTS * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			if (header.get(0) != MAGIC || header.get(1) != VERSION)
+				throw new IOException("not a layer graph file: " + file);
+			int nodes = header.get(2);
+			int edges = header.get(3);
+			IntBuffer[] arrays = new IntBuffer[10];
+			long pos = HEADER_INTS * 4;
+			for (int i = 0; i < arrays.length; i++) {
+				long size = (i < 3 ? nodes : edges) * 4L;
+				arrays[i] = ch.map(FileChannel.MapMode.READ_ONLY, pos, size).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+				pos += size;
+			}
+			if (pos != ch.size())
+				throw new IOException("truncated layer graph file: " + file);
+			return new MappedLayerGraph(nodes, edges, arrays);
+		}
+	}
+
+	// the query code of ContractionHierarchies runs on the mapped arrays through QueryGraph
+	public static ContractionHierarchies.PathInfo shortestPath(MappedLayerGraph g, int s, int t) {
+		return ContractionHierarchies.shortestPath(g, s, t);
+	}
+
+	public static int[][] manyToMany(MappedLayerGraph g, int[] s, int[] t) {
+		return ContractionHierarchies.manyToMany(g, s, t);
+	}
+
+	// random test
+	public static void main(String[] args) throws IOException {
+		Random rnd = new Random(1);
+		Path file = Files.createTempFile("layergraph", ".bin");
+		for (int step = 0; step < 50; step++) {
+			int V = rnd.nextInt(100) + 2;
+			int E = Math.max(V, Math.min(V * (V - 1), 5 * V));
+			int[][] d = ContractionHierarchies.generateStronglyConnectedDigraph(V, E, rnd);
+			ContractionHierarchies.LayerGraph origGraph = new ContractionHierarchies.LayerGraph(V, 100000);
+			for (int i = 0; i < V; i++)
+				for (int j = 0; j < V; j++)
+					if (i != j && d[i][j] != Integer.MAX_VALUE / 2)
+						origGraph.addEdge(i, j, d[i][j]);
+			ContractionHierarchies.LayerGraph g = ContractionHierarchies.preprocess(origGraph);
+			save(g, file);
+			MappedLayerGraph mg = load(file);
+
+			int[] vertices = new int[V];
+			for (int i = 0; i < V; i++) vertices[i] = i;
+			int[][] d1 = ContractionHierarchies.manyToMany(g.compact(), vertices, vertices);
+			int[][] d2 = manyToMany(mg, vertices, vertices);
+			if (!Arrays.deepEquals(d1, d2))
+				throw new RuntimeException();
+			for (int step1 = 0; step1 < 10; step1++) {
+				int a = rnd.nextInt(V);
+				int b = rnd.nextInt(V);
+				ContractionHierarchies.PathInfo pathInfo = shortestPath(mg, a, b);
+				int res = 0;
+				int prev = a;
+				for (int edge : pathInfo.edges) {
+					if (mg.u.get(edge) != prev) throw new RuntimeException();
+					res += mg.len.get(edge);
+					prev = mg.v.get(edge);
+				}
+				if (prev != b || res != pathInfo.len || res != d1[a][b])
+					throw new RuntimeException(res + " " + pathInfo.len + " " + d1[a][b]);
+			}
+		}
+		Files.delete(file);
+	}
+}
@@ -0,0 +1,158 @@
+import java.util.*;
+
+// https://en.wikipedia.org/wiki/Sparse_matrix#Compressed_sparse_row_(CSR,_CRS_or_Yale_format)
+// edges of vertex u are stored in targets[offsets[u]..offsets[u + 1]) and cost[offsets[u]..offsets[u + 1])
+public class CsrGraph {
+	public final int nodes;
+	public final int[] offsets;
+	public final int[] targets;
+	public final int[] cost;
+
+	public CsrGraph(int[] offsets, int[] targets, int[] cost) {
+		this.nodes = offsets.length - 1;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.cost = cost;
+	}
+
+	// counting sort by source vertex in O(V + E), edges of each vertex keep their input order
+	public static CsrGraph build(int nodes, int[] from, int[] to, int[] cost) {
+		int m = from.length;
+		int[] offsets = new int[nodes + 1];
+		for (int i = 0; i < m; i++)
+			++offsets[from[i] + 1];
+		for (int i = 0; i < nodes; i++)
+			offsets[i + 1] += offsets[i];
+		int[] pos = Arrays.copyOf(offsets, nodes);
+		int[] targets = new int[m];
+		int[] c = new int[m];
+		for (int i = 0; i < m; i++) {
+			int p = pos[from[i]]++;
+			targets[p] = to[i];
+			c[p] = cost[i];
+		}
+		return new CsrGraph(offsets, targets, c);
+	}
+
+	public int degree(int u) {
+		return offsets[u + 1] - offsets[u];
+	}
+
+	public CsrGraph reverse() {
+		int m = targets.length;
+		int[] from = new int[m];
+		for (int u = 0; u < nodes; u++)
+			for (int e = offsets[u]; e < offsets[u + 1]; e++)
+				from[e] = u;
+		return build(nodes, targets, from, cost);
+	}
+
+	// binary heap of packed longs, replaces PriorityQueue<Long> without boxing
+	public static class LongHeap {
+		long[] heap;
+		public int size;
+
+		public LongHeap(int capacity) {
+			heap = new long[Math.max(1, capacity)];
+		}
+
+		public void add(long value) {
+			if (size == heap.length)
+				heap = Arrays.copyOf(heap, size * 2);
+			int pos = size++;
+			while (pos > 0) {
+				int parent = (pos - 1) / 2;
+				if (value >= heap[parent])
+					break;
+				heap[pos] = heap[parent];
+				pos = parent;
+			}
+			heap[pos] = value;
+		}
+
+		public long removeMin() {
+			long removed = heap[0];
+			long value = heap[--size];
+			int pos = 0;
+			while (true) {
+				int child = 2 * pos + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && heap[child + 1] < heap[child])
+					++child;
+				if (value <= heap[child])
+					break;
+				heap[pos] = heap[child];
+				pos = child;
+			}
+			heap[pos] = value;
+			return removed;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+	}
+
+	// Usage example
+	public static void main(String[] args) {
+		int[] from = {2, 0, 0, 1};
+		int[] to = {0, 1, 2, 2};
+		int[] cost = {5, 3, 2, -2};
+		CsrGraph g = build(3, from, to, cost);
+		for (int u = 0; u < g.nodes; u++)
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++)
+				System.out.println(u + " -> " + g.targets[e] + " : " + g.cost[e]);
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(30) + 1;
+			int m = rnd.nextInt(100);
+			int[] u = new int[m];
+			int[] v = new int[m];
+			int[] c = new int[m];
+			List<DijkstraHeap.Edge>[] graph = new List[n];
+			for (int i = 0; i < n; i++)
+				graph[i] = new ArrayList<>();
+			for (int i = 0; i < m; i++) {
+				u[i] = rnd.nextInt(n);
+				v[i] = rnd.nextInt(n);
+				c[i] = rnd.nextInt(100);
+				graph[u[i]].add(new DijkstraHeap.Edge(v[i], c[i]));
+			}
+			CsrGraph csr = build(n, u, v, c);
+			int[] prio1 = new int[n];
+			int[] prio2 = new int[n];
+			long[] prio3 = new long[n];
+			long[] prio4 = new long[n];
+			int[] prio5 = new int[n];
+			int[] pred = new int[n];
+			DijkstraHeap.shortestPaths(graph, 0, prio1, pred);
+			Dijkstra.shortestPaths(csr, 0, prio2, pred);
+			DijkstraCustomHeap.shortestPaths(csr, 0, prio3, pred);
+			DijkstraSegmentTree.shortestPaths(csr, 0, prio4, pred);
+			BellmanFord.bellmanFord(csr, 0, prio5, pred);
+			DijkstraHeap.shortestPaths(csr, 0, prio2, pred);
+			for (int i = 0; i < n; i++) {
+				long d = prio1[i] == Integer.MAX_VALUE ? Long.MAX_VALUE : prio1[i];
+				if (prio1[i] != prio2[i] || d != prio3[i] || d != prio4[i] || (prio5[i] == BellmanFord.INF ? Integer.MAX_VALUE : prio5[i]) != prio1[i])
+					throw new RuntimeException();
+			}
+		}
+
+		for (int step = 0; step < 1000; step++) {
+			PriorityQueue<Long> q = new PriorityQueue<>();
+			LongHeap h = new LongHeap(1);
+			for (int op = 0; op < 100; op++) {
+				if (rnd.nextBoolean()) {
+					long v = rnd.nextLong();
+					q.add(v);
+					h.add(v);
+				} else if (!q.isEmpty()) {
+					if (q.remove() != h.removeMin())
+						throw new RuntimeException();
+				}
+			}
+		}
+	}
+}
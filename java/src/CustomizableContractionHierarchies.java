@@ -0,0 +1,209 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Customizable contraction hierarchies: https://arxiv.org/abs/1402.0402
+// preprocess() fixes a metric-independent contraction order and shortcut topology (every upper in-neighbor is
+// connected to every upper out-neighbor, no witness searches). customize() then only recomputes edge lengths for
+// a new weight array and the result is queried with ContractionHierarchies.shortestPath as before.
+public class CustomizableContractionHierarchies {
+
+	static final int INF = Integer.MAX_VALUE / 2;
+
+	public static class Topology {
+		public final ContractionHierarchies.LayerGraph g;
+		final int originalEdges;
+		// lower triangles of edge e: (triangleFirst[k], triangleSecond[k]) for triangleStart[e] <= k < triangleStart[e + 1]
+		final int[] triangleStart;
+		final int[] triangleFirst;
+		final int[] triangleSecond;
+		// edges grouped so that all triangles of a group only use edges of earlier groups
+		final int[][] groups;
+
+		Topology(ContractionHierarchies.LayerGraph g, int originalEdges, int[] triangleStart, int[] triangleFirst, int[] triangleSecond, int[][] groups) {
+			this.g = g;
+			this.originalEdges = originalEdges;
+			this.triangleStart = triangleStart;
+			this.triangleFirst = triangleFirst;
+			this.triangleSecond = triangleSecond;
+			this.groups = groups;
+		}
+	}
+
+	static int uncontractedDegree(ContractionHierarchies.LayerGraph g, int v) {
+		int res = 0;
+		for (int edge = g.tail[0][v]; edge != -1; edge = g.prev[0][edge])
+			if (g.levels[g.v[edge]] == Integer.MAX_VALUE)
+				++res;
+		for (int edge = g.tail[1][v]; edge != -1; edge = g.prev[1][edge])
+			if (g.levels[g.u[edge]] == Integer.MAX_VALUE)
+				++res;
+		return res;
+	}
+
+	// edge ids 0..origGraph.edges-1 of origGraph stay the ids of the weights passed to customize()
+	public static Topology preprocess(ContractionHierarchies.LayerGraph origGraph) {
+		ContractionHierarchies.LayerGraph g = (ContractionHierarchies.LayerGraph) origGraph.clone();
+		int n = g.nodes;
+		Arrays.fill(g.levels, Integer.MAX_VALUE);
+
+		// greedy minimum degree order with lazy updates
+		PriorityQueue<Long> q = new PriorityQueue<>();
+		for (int v = 0; v < n; v++)
+			q.add(((long) uncontractedDegree(g, v) << 32) | v);
+		List<int[]> triangles = new ArrayList<>();
+		for (int level = 0; level < n; ) {
+			int v = q.remove().intValue();
+			if (g.levels[v] != Integer.MAX_VALUE)
+				continue;
+			int degree = uncontractedDegree(g, v);
+			if (!q.isEmpty() && degree > q.peek() >>> 32) {
+				q.add(((long) degree << 32) | v);
+				continue;
+			}
+			g.levels[v] = level++;
+			for (int uv = g.tail[1][v]; uv != -1; uv = g.prev[1][uv]) {
+				int u = g.u[uv];
+				if (g.levels[u] != Integer.MAX_VALUE)
+					continue;
+				for (int vw = g.tail[0][v]; vw != -1; vw = g.prev[0][vw]) {
+					int w = g.v[vw];
+					if (g.levels[w] != Integer.MAX_VALUE || u == w)
+						continue;
+					int uw = g.addEdge(u, w, INF);
+					triangles.add(new int[]{uw, uv, vw});
+				}
+			}
+			for (int dir = 0; dir < 2; dir++) {
+				for (int edge = g.tail[dir][v]; edge != -1; edge = g.prev[dir][edge]) {
+					int w = dir == 0 ? g.v[edge] : g.u[edge];
+					if (g.levels[w] == Integer.MAX_VALUE)
+						q.add(((long) uncontractedDegree(g, w) << 32) | w);
+				}
+			}
+		}
+
+		int[] triangleStart = new int[g.edges + 1];
+		for (int[] t : triangles)
+			++triangleStart[t[0] + 1];
+		for (int e = 0; e < g.edges; e++)
+			triangleStart[e + 1] += triangleStart[e];
+		int[] triangleFirst = new int[triangles.size()];
+		int[] triangleSecond = new int[triangles.size()];
+		int[] pos = Arrays.copyOf(triangleStart, g.edges);
+		for (int[] t : triangles) {
+			int k = pos[t[0]]++;
+			triangleFirst[k] = t[1];
+			triangleSecond[k] = t[2];
+		}
+
+		// depth of a vertex in the elimination order, an edge belongs to the group of its lower endpoint's depth
+		int[] order = new int[n];
+		for (int v = 0; v < n; v++)
+			order[g.levels[v]] = v;
+		int[] depth = new int[n];
+		int maxDepth = 0;
+		for (int v : order) {
+			for (int dir = 0; dir < 2; dir++) {
+				for (int edge = g.tail[dir][v]; edge != -1; edge = g.prev[dir][edge]) {
+					int x = dir == 0 ? g.v[edge] : g.u[edge];
+					if (g.levels[x] < g.levels[v])
+						depth[v] = Math.max(depth[v], depth[x] + 1);
+				}
+			}
+			maxDepth = Math.max(maxDepth, depth[v]);
+		}
+		int[] groupSize = new int[maxDepth + 1];
+		for (int e = 0; e < g.edges; e++)
+			++groupSize[Math.min(depth[g.u[e]], depth[g.v[e]])];
+		int[][] groups = new int[maxDepth + 1][];
+		for (int d = 0; d <= maxDepth; d++)
+			groups[d] = new int[groupSize[d]];
+		Arrays.fill(groupSize, 0);
+		for (int e = 0; e < g.edges; e++) {
+			int d = Math.min(depth[g.u[e]], depth[g.v[e]]);
+			groups[d][groupSize[d]++] = e;
+		}
+		return new Topology(g, origGraph.edges, triangleStart, triangleFirst, triangleSecond, groups);
+	}
+
+	public static void customize(Topology topo, int[] weights) {
+		customize(topo, weights, ForkJoinPool.commonPool());
+	}
+
+	// weights[e] is the new length of original edge e, lengths must be below INF
+	public static void customize(Topology topo, int[] weights, ForkJoinPool pool) {
+		ContractionHierarchies.LayerGraph g = topo.g;
+		pool.submit(() -> {
+			IntStream.range(0, g.edges).parallel().forEach(e -> {
+				g.len[e] = e < topo.originalEdges ? weights[e] : INF;
+				g.firstEdge[e] = -1;
+				g.secondEdge[e] = -1;
+			});
+			for (int[] group : topo.groups) {
+				IntStream.of(group).parallel().forEach(e -> {
+					for (int k = topo.triangleStart[e]; k < topo.triangleStart[e + 1]; k++) {
+						int first = topo.triangleFirst[k];
+						int second = topo.triangleSecond[k];
+						int len = g.len[first] + g.len[second];
+						if (g.len[e] > len) {
+							g.len[e] = len;
+							g.firstEdge[e] = first;
+							g.secondEdge[e] = second;
+						}
+					}
+				});
+			}
+		}).join();
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 100; step++) {
+			int V = rnd.nextInt(100) + 2;
+			int E = Math.max(V, Math.min(V * (V - 1), 5 * V));
+			int[][] d = ContractionHierarchies.generateStronglyConnectedDigraph(V, E, rnd);
+			ContractionHierarchies.LayerGraph origGraph = new ContractionHierarchies.LayerGraph(V, 100000);
+			for (int i = 0; i < V; i++)
+				for (int j = 0; j < V; j++)
+					if (i != j && d[i][j] != Integer.MAX_VALUE / 2)
+						origGraph.addEdge(i, j, d[i][j]);
+			Topology topo = preprocess(origGraph);
+
+			for (int metric = 0; metric < 3; metric++) {
+				int[] weights = new int[origGraph.edges];
+				int[][] dist = new int[V][V];
+				for (int[] row : dist)
+					Arrays.fill(row, INF);
+				for (int i = 0; i < V; i++)
+					dist[i][i] = 0;
+				for (int e = 0; e < origGraph.edges; e++) {
+					weights[e] = rnd.nextInt(10);
+					dist[origGraph.u[e]][origGraph.v[e]] = Math.min(dist[origGraph.u[e]][origGraph.v[e]], weights[e]);
+				}
+				for (int k = 0; k < V; k++)
+					for (int i = 0; i < V; i++)
+						for (int j = 0; j < V; j++)
+							dist[i][j] = Math.min(dist[i][j], dist[i][k] + dist[k][j]);
+
+				customize(topo, weights);
+				for (int query = 0; query < 10; query++) {
+					int a = rnd.nextInt(V);
+					int b = rnd.nextInt(V);
+					ContractionHierarchies.PathInfo pathInfo = ContractionHierarchies.shortestPath(topo.g, a, b);
+					int res = 0;
+					int prev = a;
+					for (int edge : pathInfo.edges) {
+						if (edge >= origGraph.edges || topo.g.u[edge] != prev)
+							throw new RuntimeException();
+						res += weights[edge];
+						prev = topo.g.v[edge];
+					}
+					if (prev != b || res != pathInfo.len || res != dist[a][b])
+						throw new RuntimeException(res + " " + pathInfo.len + " " + dist[a][b]);
+				}
+			}
+		}
+	}
+}
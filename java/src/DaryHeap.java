@@ -0,0 +1,96 @@
+// https://en.wikipedia.org/wiki/D-ary_heap
+// invariant: heap[parent] <= heap[child], children of pos are d*pos+1..d*pos+d
+// a larger arity gives a shallower tree and cheaper decreaseKey at the cost of more comparisons in removeMin
+public class DaryHeap implements AddressableHeap {
+	final int shift;
+	long[] heap;
+	int[] pos2Id;
+	int[] id2Pos;
+	int size;
+
+	// arity must be a power of two, 4 and 8 are typical
+	public DaryHeap(int n, int arity) {
+		if (Integer.bitCount(arity) != 1)
+			throw new IllegalArgumentException("arity must be a power of two: " + arity);
+		shift = Integer.numberOfTrailingZeros(arity);
+		heap = new long[n];
+		pos2Id = new int[n];
+		id2Pos = new int[n];
+	}
+
+	@Override
+	public void add(int id, long value) {
+		up(size++, id, value);
+	}
+
+	@Override
+	public void decreaseKey(int id, long value) {
+		up(id2Pos[id], id, value);
+	}
+
+	@Override
+	public int removeMin() {
+		int removedId = pos2Id[0];
+		--size;
+		if (size > 0)
+			down(0, pos2Id[size], heap[size]);
+		return removedId;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// moves the hole at pos up and puts (id, value) there
+	void up(int pos, int id, long value) {
+		while (pos > 0) {
+			int parent = (pos - 1) >> shift;
+			if (value >= heap[parent])
+				break;
+			heap[pos] = heap[parent];
+			pos2Id[pos] = pos2Id[parent];
+			id2Pos[pos2Id[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = value;
+		pos2Id[pos] = id;
+		id2Pos[id] = pos;
+	}
+
+	void down(int pos, int id, long value) {
+		while (true) {
+			int first = (pos << shift) + 1;
+			if (first >= size)
+				break;
+			int last = Math.min(size, first + (1 << shift));
+			int child = first;
+			for (int i = first + 1; i < last; i++)
+				if (heap[i] < heap[child])
+					child = i;
+			if (value <= heap[child])
+				break;
+			heap[pos] = heap[child];
+			pos2Id[pos] = pos2Id[child];
+			id2Pos[pos2Id[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = value;
+		pos2Id[pos] = id;
+		id2Pos[id] = pos;
+	}
+
+	// Usage example
+	public static void main(String[] args) {
+		DaryHeap heap = new DaryHeap(10, 4);
+		heap.add(0, 4);
+		heap.add(1, 5);
+		heap.add(2, 2);
+		heap.decreaseKey(1, 1);
+
+		// print elements in sorted order
+		while (heap.size != 0) {
+			System.out.println(heap.heap[0] + " " + heap.removeMin());
+		}
+	}
+}
@@ -0,0 +1,242 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.*;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Parallel_single-source_shortest_path_algorithm#Delta_stepping_algorithm
+// Works on the DijkstraCustomHeap.Edge graph model, costs must be non-negative. Light edges (cost <= delta) of
+// the current bucket are relaxed in parallel until the bucket is stable, then heavy edges of all settled vertices
+// are relaxed once.
+// Distances are updated lock-free with CAS, pred is restored afterwards by BFS over tight edges.
+public class DeltaStepping {
+
+	static final int GRAIN = 256;
+
+	public static void shortestPaths(List<DijkstraCustomHeap.Edge>[] edges, int s, long[] prio, int[] pred, long delta) {
+		shortestPaths(edges, s, prio, pred, delta, ForkJoinPool.commonPool());
+	}
+
+	public static void shortestPaths(List<DijkstraCustomHeap.Edge>[] edges, int s, long[] prio, int[] pred, long delta, ForkJoinPool pool) {
+		if (delta <= 0)
+			throw new IllegalArgumentException("delta must be positive: " + delta);
+		int n = edges.length;
+		Relaxation r = new Relaxation(edges, delta);
+		r.dist.set(s, 0);
+		TreeMap<Long, IntList> buckets = new TreeMap<>();
+		buckets.put(0L, IntList.of(s));
+		int[] mark = new int[n];
+		int markStamp = 0;
+		boolean[] inSettled = new boolean[n];
+		IntList settled = new IntList();
+		IntList frontier = new IntList();
+
+		while (!buckets.isEmpty()) {
+			Map.Entry<Long, IntList> first = buckets.pollFirstEntry();
+			long bucket = first.getKey();
+			IntList candidates = first.getValue();
+			++markStamp;
+			frontier.size = 0;
+			for (int i = 0; i < candidates.size; i++) {
+				int v = candidates.a[i];
+				if (r.dist.get(v) / delta == bucket && mark[v] != markStamp) {
+					mark[v] = markStamp;
+					frontier.add(v);
+				}
+			}
+			settled.size = 0;
+			while (frontier.size != 0) {
+				for (int i = 0; i < frontier.size; i++) {
+					int v = frontier.a[i];
+					if (!inSettled[v]) {
+						inSettled[v] = true;
+						settled.add(v);
+					}
+				}
+				int updated = r.relax(pool, frontier, true);
+				frontier.size = 0;
+				for (int i = 0; i < updated; i++) {
+					int v = r.out[i];
+					long b = r.dist.get(v) / delta;
+					if (b == bucket)
+						frontier.add(v);
+					else
+						buckets.computeIfAbsent(b, k -> new IntList()).add(v);
+				}
+			}
+			int updated = r.relax(pool, settled, false);
+			for (int i = 0; i < updated; i++) {
+				int v = r.out[i];
+				buckets.computeIfAbsent(r.dist.get(v) / delta, k -> new IntList()).add(v);
+			}
+			for (int i = 0; i < settled.size; i++)
+				inSettled[settled.a[i]] = false;
+		}
+
+		for (int i = 0; i < n; i++)
+			prio[i] = r.dist.get(i);
+		restorePred(edges, s, prio, pred);
+	}
+
+	// BFS over edges with prio[u] + cost == prio[v], gives a tree even with zero cost cycles
+	static void restorePred(List<DijkstraCustomHeap.Edge>[] edges, int s, long[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		boolean[] visited = new boolean[edges.length];
+		int[] q = new int[edges.length];
+		int qt = 0;
+		q[qt++] = s;
+		visited[s] = true;
+		for (int qh = 0; qh < qt; qh++) {
+			int u = q[qh];
+			for (DijkstraCustomHeap.Edge e : edges[u]) {
+				if (!visited[e.t] && prio[u] + e.cost == prio[e.t]) {
+					visited[e.t] = true;
+					pred[e.t] = u;
+					q[qt++] = e.t;
+				}
+			}
+		}
+	}
+
+	static class Relaxation {
+		final List<DijkstraCustomHeap.Edge>[] edges;
+		final long delta;
+		final AtomicLongArray dist;
+		// each vertex is written to out at most once per relax() call
+		final AtomicIntegerArray stamp;
+		final AtomicInteger outSize = new AtomicInteger();
+		final int[] out;
+		int phase;
+
+		Relaxation(List<DijkstraCustomHeap.Edge>[] edges, long delta) {
+			int n = edges.length;
+			this.edges = edges;
+			this.delta = delta;
+			dist = new AtomicLongArray(n);
+			for (int i = 0; i < n; i++)
+				dist.set(i, Long.MAX_VALUE);
+			stamp = new AtomicIntegerArray(n);
+			out = new int[n];
+		}
+
+		int relax(ForkJoinPool pool, IntList vertices, boolean light) {
+			++phase;
+			outSize.set(0);
+			pool.invoke(new RelaxTask(this, vertices.a, 0, vertices.size, light));
+			return outSize.get();
+		}
+
+		void relax(int u, boolean light) {
+			long du = dist.get(u);
+			for (DijkstraCustomHeap.Edge e : edges[u]) {
+				if ((e.cost <= delta) != light)
+					continue;
+				int v = e.t;
+				long nprio = du + e.cost;
+				for (long old = dist.get(v); old > nprio; old = dist.get(v)) {
+					if (dist.compareAndSet(v, old, nprio)) {
+						if (stamp.getAndSet(v, phase) != phase)
+							out[outSize.getAndIncrement()] = v;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	static class RelaxTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final Relaxation r;
+		final int[] vertices;
+		final int from, to;
+		final boolean light;
+
+		RelaxTask(Relaxation r, int[] vertices, int from, int to, boolean light) {
+			this.r = r;
+			this.vertices = vertices;
+			this.from = from;
+			this.to = to;
+			this.light = light;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= GRAIN) {
+				for (int i = from; i < to; i++)
+					r.relax(vertices[i], light);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new RelaxTask(r, vertices, from, mid, light), new RelaxTask(r, vertices, mid, to, light));
+		}
+	}
+
+	static class IntList {
+		int[] a = new int[4];
+		int size;
+
+		static IntList of(int v) {
+			IntList list = new IntList();
+			list.add(v);
+			return list;
+		}
+
+		void add(int v) {
+			if (size == a.length)
+				a = Arrays.copyOf(a, size * 2);
+			a[size++] = v;
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(50) + 1;
+			int m = rnd.nextInt(300);
+			List<DijkstraCustomHeap.Edge>[] edges = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int i = 0; i < m; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int cost = rnd.nextInt(100);
+				edges[u].add(new DijkstraCustomHeap.Edge(v, cost));
+			}
+			long[] prio1 = new long[n];
+			long[] prio2 = new long[n];
+			int[] pred1 = new int[n];
+			int[] pred2 = new int[n];
+			DijkstraCustomHeap.shortestPaths(edges, 0, prio1, pred1);
+			shortestPaths(edges, 0, prio2, pred2, rnd.nextInt(150) + 1);
+			if (!Arrays.equals(prio1, prio2))
+				throw new RuntimeException();
+			for (int v = 0; v < n; v++)
+				if ((pred1[v] == -1) != (pred2[v] == -1))
+					throw new RuntimeException();
+		}
+
+		// random graph benchmark
+		int n = 1_000_000;
+		List<DijkstraCustomHeap.Edge>[] edges = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		for (int i = 0; i < 8 * n; i++) {
+			int u = rnd.nextInt(n);
+			int v = rnd.nextInt(n);
+			int cost = rnd.nextInt(1000);
+			edges[u].add(new DijkstraCustomHeap.Edge(v, cost));
+		}
+		long[] prio1 = new long[n];
+		long[] prio2 = new long[n];
+		int[] pred = new int[n];
+		for (int rep = 0; rep < 3; rep++) {
+			long time = System.currentTimeMillis();
+			DijkstraCustomHeap.shortestPaths(edges, 0, prio1, pred);
+			long time1 = System.currentTimeMillis();
+			shortestPaths(edges, 0, prio2, pred, 100);
+			long time2 = System.currentTimeMillis();
+			if (!Arrays.equals(prio1, prio2))
+				throw new RuntimeException();
+			System.out.println("dijkstra = " + (time1 - time) + " delta-stepping = " + (time2 - time1)
+					+ " threads = " + ForkJoinPool.commonPool().getParallelism());
+		}
+	}
+}
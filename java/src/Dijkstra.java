@@ -31,6 +31,33 @@ public class Dijkstra {
 		}
 	}
 
+	public static void shortestPaths(CsrGraph g, int s, int[] prio, int[] pred) {
+		int n = g.nodes;
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Integer.MAX_VALUE);
+		prio[s] = 0;
+		boolean[] visited = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			int u = -1;
+			for (int j = 0; j < n; j++) {
+				if (!visited[j] && (u == -1 || prio[u] > prio[j]))
+					u = j;
+			}
+			if (prio[u] == Integer.MAX_VALUE)
+				break;
+			visited[u] = true;
+
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				int nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
 	static class Edge {
 		int t, cost;
 
@@ -26,6 +26,74 @@ public class DijkstraCustomHeap {
 		}
 	}
 
+	// same as above with any AddressableHeap of capacity edges.length, e.g. DaryHeap or PairingHeap
+	public static void shortestPaths(List<Edge>[] edges, int s, long[] prio, int[] pred, AddressableHeap h) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		h.add(s, 0);
+		while (h.size() != 0) {
+			int u = h.removeMin();
+			for (Edge e : edges[u]) {
+				int v = e.t;
+				long nprio = prio[u] + e.cost;
+				if (prio[v] > nprio) {
+					if (prio[v] == Long.MAX_VALUE)
+						h.add(v, nprio);
+					else
+						h.decreaseKey(v, nprio);
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	public static void shortestPaths(CsrGraph g, int s, long[] prio, int[] pred, AddressableHeap h) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		h.add(s, 0);
+		while (h.size() != 0) {
+			int u = h.removeMin();
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				long nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					if (prio[v] == Long.MAX_VALUE)
+						h.add(v, nprio);
+					else
+						h.decreaseKey(v, nprio);
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	public static void shortestPaths(CsrGraph g, int s, long[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		BinaryHeap h = new BinaryHeap(g.nodes);
+		h.add(s, 0);
+		while (h.size != 0) {
+			int u = h.remove();
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				long nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					if (prio[v] == Long.MAX_VALUE)
+						h.add(v, nprio);
+					else
+						h.increasePriority(v, nprio);
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
 	public static class Edge {
 		int t;
 		int cost;
@@ -36,7 +104,7 @@ public class DijkstraCustomHeap {
 		}
 	}
 
-	static class BinaryHeap {
+	static class BinaryHeap implements AddressableHeap {
 		long[] heap;
 		int[] pos2Id;
 		int[] id2Pos;
@@ -69,6 +137,21 @@ public class DijkstraCustomHeap {
 			up(id2Pos[id]);
 		}
 
+		@Override
+		public void decreaseKey(int id, long value) {
+			increasePriority(id, value);
+		}
+
+		@Override
+		public int removeMin() {
+			return remove();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
 		void up(int pos) {
 			while (pos > 0) {
 				int parent = (pos - 1) / 2;
@@ -0,0 +1,221 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Dijkstra's_algorithm#Specialized_variants in O(E + V*C), C = max edge cost
+// buckets are kept in a circular array of C+1 intrusive doubly linked lists, so C is limited to MAX_BUCKETS - 1;
+// larger costs are rejected, shortestPathsSmallWeights sends them to the radix heap
+public class DijkstraDial {
+
+	// Dial is faster for small costs, otherwise the radix heap with O(log(C)) buckets wins
+	static final int DIAL_MAX_COST = 1 << 10;
+	// bucket heads take 4 * (C + 1) bytes, a cost near Integer.MAX_VALUE would overflow or need 8 GB
+	static final int MAX_BUCKETS = 1 << 24;
+
+	public static void shortestPaths(List<Edge>[] edges, int s, long[] prio, int[] pred) {
+		int n = edges.length;
+		int maxCost = 0;
+		for (List<Edge> list : edges)
+			for (Edge e : list)
+				maxCost = Math.max(maxCost, e.cost);
+		Buckets b = new Buckets(n, maxCost);
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		b.add(s, 0);
+		while (b.size != 0) {
+			int u = b.remove();
+			for (Edge e : edges[u]) {
+				int v = e.t;
+				long nprio = prio[u] + e.cost;
+				if (prio[v] > nprio) {
+					if (prio[v] != Long.MAX_VALUE)
+						b.unlink(v);
+					b.add(v, nprio);
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	public static void shortestPaths(CsrGraph g, int s, long[] prio, int[] pred) {
+		int maxCost = 0;
+		for (int c : g.cost)
+			maxCost = Math.max(maxCost, c);
+		Buckets b = new Buckets(g.nodes, maxCost);
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		b.add(s, 0);
+		while (b.size != 0) {
+			int u = b.remove();
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				long nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					if (prio[v] != Long.MAX_VALUE)
+						b.unlink(v);
+					b.add(v, nprio);
+					prio[v] = nprio;
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	// picks Dial buckets or radix heap by the maximum edge cost, costs must be non-negative
+	public static void shortestPathsSmallWeights(CsrGraph g, int s, long[] prio, int[] pred) {
+		int maxCost = 0;
+		for (int c : g.cost)
+			maxCost = Math.max(maxCost, c);
+		if (maxCost <= DIAL_MAX_COST)
+			shortestPaths(g, s, prio, pred);
+		else
+			DijkstraRadixHeap.shortestPaths(g, s, prio, pred);
+	}
+
+	public static class Edge {
+		int t;
+		int cost;
+
+		public Edge(int t, int cost) {
+			this.t = t;
+			this.cost = cost;
+		}
+	}
+
+	static class Buckets {
+		int[] head;
+		int[] next;
+		int[] prev;
+		int[] bucket;
+		long cur;
+		int size;
+
+		Buckets(int n, int maxCost) {
+			if (maxCost >= MAX_BUCKETS)
+				throw new IllegalArgumentException("max edge cost " + maxCost + " needs more than " + MAX_BUCKETS + " buckets, use the radix heap");
+			head = new int[maxCost + 1];
+			next = new int[n];
+			prev = new int[n];
+			bucket = new int[n];
+			Arrays.fill(head, -1);
+		}
+
+		void add(int id, long value) {
+			int b = (int) (value % head.length);
+			bucket[id] = b;
+			prev[id] = -1;
+			next[id] = head[b];
+			if (head[b] != -1)
+				prev[head[b]] = id;
+			head[b] = id;
+			++size;
+		}
+
+		void unlink(int id) {
+			if (prev[id] != -1)
+				next[prev[id]] = next[id];
+			else
+				head[bucket[id]] = next[id];
+			if (next[id] != -1)
+				prev[next[id]] = prev[id];
+			--size;
+		}
+
+		// all queued values lie in [cur, cur + maxCost], so the scan wraps around at most once
+		int remove() {
+			while (head[(int) (cur % head.length)] == -1)
+				++cur;
+			int id = head[(int) (cur % head.length)];
+			unlink(id);
+			return id;
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(30) + 1;
+			int m = rnd.nextInt(100);
+			int maxCost = rnd.nextInt(2) == 0 ? rnd.nextInt(5) : rnd.nextInt(100_000);
+			int[] u = new int[m];
+			int[] v = new int[m];
+			int[] c = new int[m];
+			List<Edge>[] edges = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int i = 0; i < m; i++) {
+				u[i] = rnd.nextInt(n);
+				v[i] = rnd.nextInt(n);
+				c[i] = rnd.nextInt(maxCost + 1);
+				edges[u[i]].add(new Edge(v[i], c[i]));
+			}
+			CsrGraph g = CsrGraph.build(n, u, v, c);
+			long[] prio1 = new long[n];
+			long[] prio2 = new long[n];
+			long[] prio3 = new long[n];
+			int[] pred = new int[n];
+			DijkstraCustomHeap.shortestPaths(g, 0, prio1, pred);
+			shortestPaths(edges, 0, prio2, pred);
+			shortestPathsSmallWeights(g, 0, prio3, pred);
+			if (!Arrays.equals(prio1, prio2) || !Arrays.equals(prio1, prio3))
+				throw new RuntimeException();
+			for (int i = 0; i < n; i++)
+				if (pred[i] != -1 && prio3[pred[i]] + minCost(g, pred[i], i) != prio3[i])
+					throw new RuntimeException();
+		}
+
+		// costs beyond the bucket limit are rejected by Dial and handled by the radix heap
+		int[] bigCost = {Integer.MAX_VALUE, MAX_BUCKETS, 1};
+		CsrGraph big = CsrGraph.build(3, new int[]{0, 1, 0}, new int[]{1, 2, 2}, bigCost);
+		try {
+			shortestPaths(big, 0, new long[3], new int[3]);
+			throw new RuntimeException();
+		} catch (IllegalArgumentException expected) {
+		}
+		long[] bigPrio = new long[3];
+		shortestPathsSmallWeights(big, 0, bigPrio, new int[3]);
+		if (!Arrays.equals(bigPrio, new long[]{0, Integer.MAX_VALUE, 1}))
+			throw new RuntimeException();
+
+		// grid graph benchmark
+		int side = 1000;
+		int n = side * side;
+		int[] u = new int[4 * n];
+		int[] v = new int[4 * n];
+		int[] c = new int[4 * n];
+		int m = 0;
+		for (int i = 0; i < side; i++)
+			for (int j = 0; j < side; j++)
+				for (int[] d : new int[][]{{0, 1}, {1, 0}, {0, -1}, {-1, 0}}) {
+					int ni = i + d[0];
+					int nj = j + d[1];
+					if (ni < 0 || ni >= side || nj < 0 || nj >= side)
+						continue;
+					u[m] = i * side + j;
+					v[m] = ni * side + nj;
+					c[m++] = rnd.nextInt(100);
+				}
+		CsrGraph g = CsrGraph.build(n, Arrays.copyOf(u, m), Arrays.copyOf(v, m), Arrays.copyOf(c, m));
+		long[] prio = new long[n];
+		int[] pred = new int[n];
+		for (int rep = 0; rep < 3; rep++) {
+			long time = System.currentTimeMillis();
+			DijkstraCustomHeap.shortestPaths(g, 0, prio, pred);
+			long time1 = System.currentTimeMillis();
+			shortestPaths(g, 0, prio, pred);
+			long time2 = System.currentTimeMillis();
+			DijkstraRadixHeap.shortestPaths(g, 0, prio, pred);
+			long time3 = System.currentTimeMillis();
+			System.out.println("binary heap = " + (time1 - time) + " dial = " + (time2 - time1) + " radix heap = " + (time3 - time2));
+		}
+	}
+
+	static int minCost(CsrGraph g, int u, int v) {
+		int res = Integer.MAX_VALUE;
+		for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++)
+			if (g.targets[e] == v)
+				res = Math.min(res, g.cost[e]);
+		return res;
+	}
+}
@@ -27,6 +27,29 @@ public class DijkstraHeap {
 		}
 	}
 
+	public static void shortestPaths(CsrGraph g, int s, int[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Integer.MAX_VALUE);
+		prio[s] = 0;
+		CsrGraph.LongHeap q = new CsrGraph.LongHeap(g.nodes);
+		q.add(s);
+		while (!q.isEmpty()) {
+			long cur = q.removeMin();
+			int curu = (int) cur;
+			if (cur >>> 32 != prio[curu])
+				continue;
+			for (int e = g.offsets[curu]; e < g.offsets[curu + 1]; e++) {
+				int v = g.targets[e];
+				int nprio = prio[curu] + g.cost[e];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = curu;
+					q.add(((long) nprio << 32) + v);
+				}
+			}
+		}
+	}
+
 	public static class Edge {
 		int t;
 		int cost;
@@ -0,0 +1,224 @@
+import java.util.*;
+
+// Point-to-point queries: bidirectional Dijkstra and A* with landmarks (ALT)
+// http://www.cs.princeton.edu/courses/archive/spr06/cos423/Handouts/GH05.pdf
+// Distances are ints as in DijkstraHeap and must stay below 2^30. After a query pred is filled only along the
+// found path: pred[s] == -1 and following pred from t leads to s, other entries are left untouched.
+public class DijkstraPointToPoint {
+
+	static final int INF = Integer.MAX_VALUE;
+
+	final CsrGraph g;
+	final CsrGraph rg;
+	final int[][] prio;
+	final int[][] pred;
+	final int[] visited;
+	int visitedCount;
+	int[][] fromLandmark;
+	int[][] toLandmark;
+
+	public DijkstraPointToPoint(CsrGraph g) {
+		this.g = g;
+		rg = g.reverse();
+		prio = new int[][]{new int[g.nodes], new int[g.nodes]};
+		pred = new int[][]{new int[g.nodes], new int[g.nodes]};
+		Arrays.fill(prio[0], INF);
+		Arrays.fill(prio[1], INF);
+		visited = new int[g.nodes];
+	}
+
+	// farthest landmark selection: each next landmark maximizes the distance to the already chosen ones
+	public void selectLandmarks(int count, Random rnd) {
+		int n = g.nodes;
+		count = Math.min(count, n);
+		fromLandmark = new int[count][n];
+		toLandmark = new int[count][n];
+		int[] minDist = new int[n];
+		int[] tmpPred = new int[n];
+		DijkstraHeap.shortestPaths(g, rnd.nextInt(n), minDist, tmpPred);
+		for (int k = 0; k < count; k++) {
+			int landmark = 0;
+			for (int v = 0; v < n; v++)
+				if (minDist[v] != 0 && (minDist[landmark] == 0 || minDist[v] > minDist[landmark]))
+					landmark = v;
+			DijkstraHeap.shortestPaths(g, landmark, fromLandmark[k], tmpPred);
+			DijkstraHeap.shortestPaths(rg, landmark, toLandmark[k], tmpPred);
+			for (int v = 0; v < n; v++)
+				minDist[v] = k == 0 ? fromLandmark[k][v] : Math.min(minDist[v], fromLandmark[k][v]);
+		}
+	}
+
+	// lower bound of dist(v, t) from the triangle inequality
+	int potential(int v, int t) {
+		int res = 0;
+		for (int k = 0; k < fromLandmark.length; k++) {
+			int[] from = fromLandmark[k];
+			int[] to = toLandmark[k];
+			if (from[v] != INF && from[t] != INF)
+				res = Math.max(res, from[t] - from[v]);
+			if (to[v] != INF && to[t] != INF)
+				res = Math.max(res, to[v] - to[t]);
+		}
+		return res;
+	}
+
+	void visit(int v) {
+		if (prio[0][v] == INF && prio[1][v] == INF)
+			visited[visitedCount++] = v;
+	}
+
+	void reset() {
+		for (int i = 0; i < visitedCount; i++) {
+			int v = visited[i];
+			prio[0][v] = INF;
+			prio[1][v] = INF;
+		}
+		visitedCount = 0;
+	}
+
+	public int bidirectional(int s, int t, int[] resPred) {
+		CsrGraph[] graphs = {g, rg};
+		CsrGraph.LongHeap[] q = {new CsrGraph.LongHeap(16), new CsrGraph.LongHeap(16)};
+		visit(s);
+		prio[0][s] = 0;
+		pred[0][s] = -1;
+		visit(t);
+		prio[1][t] = 0;
+		pred[1][t] = -1;
+		q[0].add(s);
+		q[1].add(t);
+		long res = INF;
+		int top = -1;
+		if (s == t) {
+			res = 0;
+			top = s;
+		}
+		while (!q[0].isEmpty() && !q[1].isEmpty()) {
+			if ((q[0].heap[0] >>> 32) + (q[1].heap[0] >>> 32) >= res)
+				break;
+			int dir = q[0].size <= q[1].size ? 0 : 1;
+			long cur = q[dir].removeMin();
+			int u = (int) cur;
+			if (cur >>> 32 != prio[dir][u])
+				continue;
+			CsrGraph gr = graphs[dir];
+			for (int e = gr.offsets[u]; e < gr.offsets[u + 1]; e++) {
+				int v = gr.targets[e];
+				int nprio = prio[dir][u] + gr.cost[e];
+				if (prio[dir][v] > nprio) {
+					visit(v);
+					prio[dir][v] = nprio;
+					pred[dir][v] = u;
+					q[dir].add(((long) nprio << 32) | v);
+					if (prio[1 - dir][v] != INF && res > (long) nprio + prio[1 - dir][v]) {
+						res = (long) nprio + prio[1 - dir][v];
+						top = v;
+					}
+				}
+			}
+		}
+		if (top != -1)
+			buildPath(s, top, resPred);
+		reset();
+		return (int) res;
+	}
+
+	void buildPath(int s, int top, int[] resPred) {
+		for (int v = top; v != s; v = pred[0][v])
+			resPred[v] = pred[0][v];
+		resPred[s] = -1;
+		for (int v = top; pred[1][v] != -1; v = pred[1][v])
+			resPred[pred[1][v]] = v;
+	}
+
+	// A* with landmark potentials, selectLandmarks() must be called first
+	public int alt(int s, int t, int[] resPred) {
+		int[] dist = prio[0];
+		int[] pot = prio[1];
+		CsrGraph.LongHeap q = new CsrGraph.LongHeap(16);
+		visit(s);
+		dist[s] = 0;
+		pot[s] = potential(s, t);
+		pred[0][s] = -1;
+		q.add((long) pot[s] << 32 | s);
+		int res = INF;
+		while (!q.isEmpty()) {
+			long cur = q.removeMin();
+			int u = (int) cur;
+			if (cur >>> 32 != dist[u] + pot[u])
+				continue;
+			if (u == t) {
+				res = dist[u];
+				break;
+			}
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				int nprio = dist[u] + g.cost[e];
+				if (dist[v] > nprio) {
+					visit(v);
+					if (dist[v] == INF)
+						pot[v] = potential(v, t);
+					dist[v] = nprio;
+					pred[0][v] = u;
+					q.add((long) (nprio + pot[v]) << 32 | v);
+				}
+			}
+		}
+		if (res != INF) {
+			for (int v = t; v != s; v = pred[0][v])
+				resPred[v] = pred[0][v];
+			resPred[s] = -1;
+		}
+		reset();
+		return res;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(50) + 1;
+			int m = rnd.nextInt(200);
+			int[] u = new int[m];
+			int[] v = new int[m];
+			int[] c = new int[m];
+			for (int i = 0; i < m; i++) {
+				u[i] = rnd.nextInt(n);
+				v[i] = rnd.nextInt(n);
+				c[i] = rnd.nextInt(100);
+			}
+			CsrGraph g = CsrGraph.build(n, u, v, c);
+			DijkstraPointToPoint p2p = new DijkstraPointToPoint(g);
+			p2p.selectLandmarks(rnd.nextInt(4) + 1, rnd);
+			int[] dist = new int[n];
+			int[] pred = new int[n];
+			int[] pred1 = new int[n];
+			for (int query = 0; query < 10; query++) {
+				int s = rnd.nextInt(n);
+				int t = rnd.nextInt(n);
+				DijkstraHeap.shortestPaths(g, s, dist, pred);
+				int res1 = p2p.bidirectional(s, t, pred1);
+				checkPath(g, s, t, res1, pred1);
+				int res2 = p2p.alt(s, t, pred1);
+				checkPath(g, s, t, res2, pred1);
+				if (res1 != dist[t] || res2 != dist[t])
+					throw new RuntimeException();
+			}
+		}
+	}
+
+	static void checkPath(CsrGraph g, int s, int t, int len, int[] pred) {
+		if (len == INF)
+			return;
+		int res = 0;
+		for (int v = t; v != s; v = pred[v]) {
+			int cost = INF;
+			for (int e = g.offsets[pred[v]]; e < g.offsets[pred[v] + 1]; e++)
+				if (g.targets[e] == v)
+					cost = Math.min(cost, g.cost[e]);
+			res += cost;
+		}
+		if (pred[s] != -1 || res != len)
+			throw new RuntimeException();
+	}
+}
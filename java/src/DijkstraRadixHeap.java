@@ -0,0 +1,149 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Radix_heap in O(E + V*log(C)), C = max edge cost
+// monotone priority queue: bucket i holds keys whose highest bit differing from the last removed key is i-1
+public class DijkstraRadixHeap {
+
+	public static void shortestPaths(List<Edge>[] edges, int s, long[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		RadixHeap h = new RadixHeap(prio);
+		h.add(s, 0);
+		while (h.size != 0) {
+			int u = h.remove();
+			for (Edge e : edges[u]) {
+				int v = e.t;
+				long nprio = prio[u] + e.cost;
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = u;
+					h.add(v, nprio);
+				}
+			}
+		}
+	}
+
+	public static void shortestPaths(CsrGraph g, int s, long[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		RadixHeap h = new RadixHeap(prio);
+		h.add(s, 0);
+		while (h.size != 0) {
+			int u = h.remove();
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				long nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = u;
+					h.add(v, nprio);
+				}
+			}
+		}
+	}
+
+	public static class Edge {
+		int t;
+		int cost;
+
+		public Edge(int t, int cost) {
+			this.t = t;
+			this.cost = cost;
+		}
+	}
+
+	// entries are lazy: an entry (key, id) is stale if key != prio[id], size counts queued ids
+	static class RadixHeap {
+		long[][] keys = new long[65][4];
+		int[][] ids = new int[65][4];
+		int[] sizes = new int[65];
+		long[] prio;
+		boolean[] queued;
+		long last;
+		int size;
+
+		RadixHeap(long[] prio) {
+			this.prio = prio;
+			queued = new boolean[prio.length];
+		}
+
+		void add(int id, long key) {
+			push(key, id);
+			if (!queued[id]) {
+				queued[id] = true;
+				++size;
+			}
+		}
+
+		void push(long key, int id) {
+			int b = key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+			if (sizes[b] == keys[b].length) {
+				keys[b] = Arrays.copyOf(keys[b], sizes[b] * 2);
+				ids[b] = Arrays.copyOf(ids[b], sizes[b] * 2);
+			}
+			keys[b][sizes[b]] = key;
+			ids[b][sizes[b]++] = id;
+		}
+
+		// precondition: size > 0
+		int remove() {
+			while (true) {
+				if (sizes[0] == 0) {
+					int b = 1;
+					while (sizes[b] == 0)
+						++b;
+					long min = Long.MAX_VALUE;
+					for (int i = 0; i < sizes[b]; i++)
+						if (keys[b][i] == prio[ids[b][i]])
+							min = Math.min(min, keys[b][i]);
+					int cnt = sizes[b];
+					sizes[b] = 0;
+					if (min == Long.MAX_VALUE)
+						continue;
+					last = min;
+					for (int i = 0; i < cnt; i++)
+						if (keys[b][i] == prio[ids[b][i]])
+							push(keys[b][i], ids[b][i]);
+				}
+				int id = ids[0][--sizes[0]];
+				if (keys[0][sizes[0]] == prio[id] && queued[id]) {
+					queued[id] = false;
+					--size;
+					return id;
+				}
+			}
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(30) + 1;
+			int m = rnd.nextInt(100);
+			int[] u = new int[m];
+			int[] v = new int[m];
+			int[] c = new int[m];
+			List<Edge>[] edges = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int i = 0; i < m; i++) {
+				u[i] = rnd.nextInt(n);
+				v[i] = rnd.nextInt(n);
+				c[i] = rnd.nextInt(rnd.nextBoolean() ? 3 : Integer.MAX_VALUE);
+				edges[u[i]].add(new Edge(v[i], c[i]));
+			}
+			CsrGraph g = CsrGraph.build(n, u, v, c);
+			long[] prio1 = new long[n];
+			long[] prio2 = new long[n];
+			long[] prio3 = new long[n];
+			int[] pred = new int[n];
+			DijkstraCustomHeap.shortestPaths(g, 0, prio1, pred);
+			shortestPaths(g, 0, prio2, pred);
+			shortestPaths(edges, 0, prio3, pred);
+			if (!Arrays.equals(prio1, prio2) || !Arrays.equals(prio1, prio3))
+				throw new RuntimeException();
+		}
+	}
+}
@@ -27,6 +27,30 @@ public class DijkstraSegmentTree {
 		}
 	}
 
+	public static void shortestPaths(CsrGraph g, int s, long[] prio, int[] pred) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, Long.MAX_VALUE);
+		prio[s] = 0;
+		long[] t = new long[g.nodes * 2];
+		Arrays.fill(t, Long.MAX_VALUE);
+		set(t, s, 0);
+		while (true) {
+			int cur = minIndex(t);
+			if (t[cur + t.length / 2] == Long.MAX_VALUE)
+				break;
+			set(t, cur, Long.MAX_VALUE);
+			for (int e = g.offsets[cur]; e < g.offsets[cur + 1]; e++) {
+				int v = g.targets[e];
+				long nprio = prio[cur] + g.cost[e];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = cur;
+					set(t, v, nprio);
+				}
+			}
+		}
+	}
+
 	public static class Edge {
 		int t;
 		int cost;
@@ -0,0 +1,310 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// Maximum bipartite matching under edge insertions and deletions.
+// The matching stays maximum after every update, an update is repaired by at most two augmenting path searches
+// that only visit the alternating paths reachable from the changed edge:
+// - inserting (u, v) raises the maximum by at most 1, the new augmenting path contains (u, v): it starts at u
+//   (u free), ends at v (v free), or joins an alternating path from a free left vertex to u with an alternating
+//   path from v to a free right vertex (both matched);
+// - deleting a matched edge (u, v) frees u and v, an augmenting path has to end in u or v.
+public class DynamicMatching {
+
+	final int n1;
+	final int n2;
+	final int[][] adjL;
+	final int[] degL;
+	final int[][] adjR;
+	final int[] degR;
+	// matchL[u] is the right partner of left vertex u or -1, matchR[v] the left partner of right vertex v or -1
+	public final int[] matchL;
+	public final int[] matchR;
+	int size;
+
+	// forward searches run from left vertices toward free right vertices, backward ones the other way; two
+	// searches with separate marks run interleaved, so a failing search is cut short by the other one
+	final Search forward;
+	final Search backward;
+
+	public DynamicMatching(int n1, int n2) {
+		this.n1 = n1;
+		this.n2 = n2;
+		adjL = new int[n1][2];
+		degL = new int[n1];
+		adjR = new int[n2][2];
+		degR = new int[n2];
+		matchL = new int[n1];
+		matchR = new int[n2];
+		Arrays.fill(matchL, -1);
+		Arrays.fill(matchR, -1);
+		forward = new Search(true);
+		backward = new Search(false);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void addEdge(int u, int v) {
+		if (indexOf(adjL[u], degL[u], v) >= 0)
+			return;
+		if (degL[u] == adjL[u].length)
+			adjL[u] = Arrays.copyOf(adjL[u], degL[u] * 2);
+		adjL[u][degL[u]++] = v;
+		if (degR[v] == adjR[v].length)
+			adjR[v] = Arrays.copyOf(adjR[v], degR[v] * 2);
+		adjR[v][degR[v]++] = u;
+
+		if (matchL[u] == -1 && matchR[v] == -1) {
+			match(u, v);
+			++size;
+			return;
+		}
+		// the matching was maximum, so an augmenting path uses (u, v): it continues from the partners of u and v
+		if (matchR[v] != -1)
+			forward.start(matchR[v], v);
+		if (matchL[u] != -1)
+			backward.start(matchL[u], u);
+		int right = matchR[v] == -1 ? v : -1;
+		int left = matchL[u] == -1 ? u : -1;
+		while (right == -1 || left == -1) {
+			if (right == -1 && (right = forward.step()) == -2)
+				return;
+			if (left == -1 && (left = backward.step()) == -2)
+				return;
+		}
+		if (right != v)
+			forward.flip(right);
+		if (left != u)
+			backward.flip(left);
+		match(u, v);
+		++size;
+	}
+
+	public void removeEdge(int u, int v) {
+		int i = indexOf(adjL[u], degL[u], v);
+		if (i < 0)
+			return;
+		adjL[u][i] = adjL[u][--degL[u]];
+		int j = indexOf(adjR[v], degR[v], u);
+		adjR[v][j] = adjR[v][--degR[v]];
+		if (matchL[u] != v)
+			return;
+		matchL[u] = -1;
+		matchR[v] = -1;
+		--size;
+		// an augmenting path has to end in u or v, the first search that finds one wins
+		forward.start(u, -1);
+		backward.start(v, -1);
+		boolean forwardDone = false;
+		boolean backwardDone = false;
+		while (!forwardDone || !backwardDone) {
+			if (!forwardDone) {
+				int end = forward.step();
+				if (end >= 0) {
+					forward.flip(end);
+					++size;
+					return;
+				}
+				forwardDone = end == -2;
+			}
+			if (!backwardDone) {
+				int end = backward.step();
+				if (end >= 0) {
+					backward.flip(end);
+					++size;
+					return;
+				}
+				backwardDone = end == -2;
+			}
+		}
+	}
+
+	// deletions go first: deleting an unmatched edge or inserting an edge between two free vertices needs no search
+	public void update(int[][] removed, int[][] added) {
+		for (int[] e : removed)
+			removeEdge(e[0], e[1]);
+		for (int[] e : added)
+			addEdge(e[0], e[1]);
+	}
+
+	static int indexOf(int[] a, int size, int x) {
+		for (int i = 0; i < size; i++)
+			if (a[i] == x)
+				return i;
+		return -1;
+	}
+
+	void match(int u, int v) {
+		matchL[u] = v;
+		matchR[v] = u;
+	}
+
+	// resumable bfs over alternating paths; parent[x] is the vertex of the other side that reached x
+	class Search {
+		final boolean fromLeft;
+		final int[] parent;
+		final int[] visitSame;
+		final int[] visitOther;
+		final int[] queue;
+		int stamp;
+		int start;
+		int skip;
+		int qh;
+		int qt;
+
+		Search(boolean fromLeft) {
+			this.fromLeft = fromLeft;
+			parent = new int[fromLeft ? n2 : n1];
+			visitSame = new int[fromLeft ? n1 : n2];
+			visitOther = new int[fromLeft ? n2 : n1];
+			queue = new int[Math.max(n1, n2)];
+		}
+
+		// starts from matched vertex start, skipping the edge to skip
+		void start(int start, int skip) {
+			if (++stamp == 0) {
+				Arrays.fill(visitSame, 0);
+				Arrays.fill(visitOther, 0);
+				stamp = 1;
+			}
+			this.start = start;
+			this.skip = skip;
+			qh = 0;
+			qt = 0;
+			queue[qt++] = start;
+			visitSame[start] = stamp;
+		}
+
+		// expands one vertex, returns a free vertex of the other side, -1 to continue or -2 if nothing is left
+		int step() {
+			if (qh == qt)
+				return -2;
+			int x = queue[qh++];
+			int[] adj = fromLeft ? adjL[x] : adjR[x];
+			int deg = fromLeft ? degL[x] : degR[x];
+			int mate = fromLeft ? matchL[x] : matchR[x];
+			int[] matchOther = fromLeft ? matchR : matchL;
+			for (int k = 0; k < deg; k++) {
+				int y = adj[k];
+				if (y == skip || y == mate || visitOther[y] == stamp)
+					continue;
+				visitOther[y] = stamp;
+				parent[y] = x;
+				int x2 = matchOther[y];
+				if (x2 == -1)
+					return y;
+				if (visitSame[x2] != stamp) {
+					visitSame[x2] = stamp;
+					queue[qt++] = x2;
+				}
+			}
+			return -1;
+		}
+
+		// matches along the path start ~> end, start loses its old partner
+		void flip(int end) {
+			for (int y = end; ; ) {
+				int x = parent[y];
+				int prev = fromLeft ? matchL[x] : matchR[x];
+				if (fromLeft)
+					match(x, y);
+				else
+					match(y, x);
+				if (x == start)
+					break;
+				y = prev;
+			}
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n1 = rnd.nextInt(15) + 1;
+			int n2 = rnd.nextInt(15) + 1;
+			DynamicMatching dm = new DynamicMatching(n1, n2);
+			Set<Long> edges = new HashSet<>();
+			for (int op = 0; op < 200; op++) {
+				int kind = rnd.nextInt(3);
+				if (kind == 0) {
+					int u = rnd.nextInt(n1);
+					int v = rnd.nextInt(n2);
+					dm.addEdge(u, v);
+					edges.add((long) u * n2 + v);
+				} else if (kind == 1 && !edges.isEmpty()) {
+					long e = new ArrayList<>(edges).get(rnd.nextInt(edges.size()));
+					dm.removeEdge((int) (e / n2), (int) (e % n2));
+					edges.remove(e);
+				} else {
+					int[][] removed = new int[rnd.nextInt(5)][];
+					int[][] added = new int[rnd.nextInt(5)][];
+					for (int k = 0; k < removed.length; k++) {
+						removed[k] = new int[]{rnd.nextInt(n1), rnd.nextInt(n2)};
+						edges.remove((long) removed[k][0] * n2 + removed[k][1]);
+					}
+					for (int k = 0; k < added.length; k++) {
+						added[k] = new int[]{rnd.nextInt(n1), rnd.nextInt(n2)};
+						edges.add((long) added[k][0] * n2 + added[k][1]);
+					}
+					dm.update(removed, added);
+				}
+
+				List<Integer>[] graph = Stream.generate(ArrayList::new).limit(n1).toArray(List[]::new);
+				for (long e : edges)
+					graph[(int) (e / n2)].add((int) (e % n2));
+				if (dm.size() != MaxMatching.maxMatching(graph, n2))
+					throw new RuntimeException();
+				int count = 0;
+				for (int u = 0; u < n1; u++) {
+					int v = dm.matchL[u];
+					if (v == -1)
+						continue;
+					if (dm.matchR[v] != u || !edges.contains((long) u * n2 + v))
+						throw new RuntimeException();
+					++count;
+				}
+				if (count != dm.size())
+					throw new RuntimeException();
+			}
+		}
+
+		// updates on a large sparse graph against recomputing after every batch
+		int n = 20_000;
+		DynamicMatching dm = new DynamicMatching(n, n);
+		List<Integer>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		for (int i = 0; i < 3 * n; i++) {
+			int u = rnd.nextInt(n);
+			int v = rnd.nextInt(n);
+			dm.addEdge(u, v);
+			if (!graph[u].contains(v))
+				graph[u].add(v);
+		}
+		long dynamicTime = 0;
+		long recomputeTime = 0;
+		for (int b = 0; b < 100; b++) {
+			int[][] removed = new int[10][];
+			int[][] added = new int[10][];
+			for (int k = 0; k < 10; k++) {
+				int u = rnd.nextInt(n);
+				removed[k] = new int[]{u, graph[u].isEmpty() ? 0 : graph[u].get(rnd.nextInt(graph[u].size()))};
+				added[k] = new int[]{rnd.nextInt(n), rnd.nextInt(n)};
+			}
+			long time = System.currentTimeMillis();
+			dm.update(removed, added);
+			dynamicTime += System.currentTimeMillis() - time;
+			for (int[] e : removed)
+				graph[e[0]].remove((Integer) e[1]);
+			for (int[] e : added)
+				if (!graph[e[0]].contains(e[1]))
+					graph[e[0]].add(e[1]);
+			time = System.currentTimeMillis();
+			int res = MaxMatchingHopcroftKarp.maxMatching(graph, n);
+			recomputeTime += System.currentTimeMillis() - time;
+			if (res != dm.size())
+				throw new RuntimeException();
+		}
+		System.out.println("100 batches of 10 deletions and 10 insertions: dynamic = " + dynamicTime + " ms, recompute with MaxMatchingHopcroftKarp = " + recomputeTime + " ms");
+	}
+}
@@ -0,0 +1,176 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// Incremental single-source shortest paths with non-negative costs (Ramalingam-Reps)
+// https://doi.org/10.1006/jagm.1996.0046
+// prio and pred have the same meaning as in DijkstraHeap.shortestPaths and are repaired after every update:
+// a decrease starts Dijkstra from the improved vertex only, an increase or deletion of a tree edge (u, v)
+// recomputes just the subtree of v from its non-affected in-neighbors.
+public class DynamicShortestPaths {
+
+	static final int INF = Integer.MAX_VALUE;
+
+	public static class Edge {
+		final int u, v;
+		int cost;
+
+		Edge(int u, int v, int cost) {
+			this.u = u;
+			this.v = v;
+			this.cost = cost;
+		}
+	}
+
+	final int s;
+	final List<Edge>[] out;
+	final List<Edge>[] in;
+	public final int[] prio;
+	public final int[] pred;
+	final boolean[] affected;
+	final CsrGraph.LongHeap q;
+
+	public DynamicShortestPaths(int n, int s) {
+		this.s = s;
+		out = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		in = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		prio = new int[n];
+		pred = new int[n];
+		affected = new boolean[n];
+		q = new CsrGraph.LongHeap(16);
+		Arrays.fill(prio, INF);
+		Arrays.fill(pred, -1);
+		prio[s] = 0;
+	}
+
+	Edge findEdge(int u, int v) {
+		for (Edge e : out[u])
+			if (e.v == v)
+				return e;
+		return null;
+	}
+
+	// inserts edge (u, v) or changes its cost
+	public void setCost(int u, int v, int cost) {
+		Edge e = findEdge(u, v);
+		if (e == null) {
+			e = new Edge(u, v, cost);
+			out[u].add(e);
+			in[v].add(e);
+			decrease(e);
+		} else if (cost < e.cost) {
+			e.cost = cost;
+			decrease(e);
+		} else if (cost > e.cost) {
+			e.cost = cost;
+			if (pred[v] == u)
+				increase(v);
+		}
+	}
+
+	public void removeEdge(int u, int v) {
+		Edge e = findEdge(u, v);
+		if (e == null)
+			return;
+		out[u].remove(e);
+		in[v].remove(e);
+		if (pred[v] == u)
+			increase(v);
+	}
+
+	void decrease(Edge e) {
+		if (prio[e.u] == INF || prio[e.v] <= prio[e.u] + e.cost)
+			return;
+		prio[e.v] = prio[e.u] + e.cost;
+		pred[e.v] = e.u;
+		q.size = 0;
+		q.add(((long) prio[e.v] << 32) | e.v);
+		propagate();
+	}
+
+	void increase(int v) {
+		// collect the subtree of v
+		List<Integer> subtree = new ArrayList<>();
+		subtree.add(v);
+		affected[v] = true;
+		for (int i = 0; i < subtree.size(); i++) {
+			int x = subtree.get(i);
+			for (Edge e : out[x]) {
+				if (!affected[e.v] && pred[e.v] == x) {
+					affected[e.v] = true;
+					subtree.add(e.v);
+				}
+			}
+		}
+		// best distance of every affected vertex through a non-affected in-neighbor
+		q.size = 0;
+		for (int x : subtree) {
+			prio[x] = INF;
+			pred[x] = -1;
+			for (Edge e : in[x]) {
+				if (!affected[e.u] && prio[e.u] != INF && prio[x] > prio[e.u] + e.cost) {
+					prio[x] = prio[e.u] + e.cost;
+					pred[x] = e.u;
+				}
+			}
+			if (prio[x] != INF)
+				q.add(((long) prio[x] << 32) | x);
+		}
+		for (int x : subtree)
+			affected[x] = false;
+		propagate();
+	}
+
+	void propagate() {
+		while (!q.isEmpty()) {
+			long cur = q.removeMin();
+			int u = (int) cur;
+			if (cur >>> 32 != prio[u])
+				continue;
+			for (Edge e : out[u]) {
+				int nprio = prio[u] + e.cost;
+				if (prio[e.v] > nprio) {
+					prio[e.v] = nprio;
+					pred[e.v] = u;
+					q.add(((long) nprio << 32) | e.v);
+				}
+			}
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(30) + 1;
+			DynamicShortestPaths dsp = new DynamicShortestPaths(n, 0);
+			for (int op = 0; op < 200; op++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				if (rnd.nextInt(4) == 0)
+					dsp.removeEdge(u, v);
+				else
+					dsp.setCost(u, v, rnd.nextInt(10));
+
+				List<DijkstraHeap.Edge>[] edges = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+				for (int x = 0; x < n; x++)
+					for (Edge e : dsp.out[x])
+						edges[x].add(new DijkstraHeap.Edge(e.v, e.cost));
+				int[] prio = new int[n];
+				int[] pred = new int[n];
+				DijkstraHeap.shortestPaths(edges, 0, prio, pred);
+				if (!Arrays.equals(prio, dsp.prio))
+					throw new RuntimeException();
+				for (int x = 0; x < n; x++) {
+					if (x == 0 || prio[x] == INF) {
+						if (dsp.pred[x] != -1)
+							throw new RuntimeException();
+					} else {
+						Edge e = dsp.findEdge(dsp.pred[x], x);
+						if (e == null || dsp.prio[e.u] + e.cost != dsp.prio[x])
+							throw new RuntimeException();
+					}
+				}
+			}
+		}
+	}
+}
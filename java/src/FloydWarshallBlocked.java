@@ -0,0 +1,172 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Blocked (tiled) Floyd-Warshall on a flat n*n matrix: https://doi.org/10.1145/1111037.1111040
+// For every block K of B pivots the diagonal tile is processed first, then the tiles of row K and column K,
+// then all remaining tiles, each group in parallel. Row k and column k are saved at the moment pivot k is
+// applied, so every entry sees exactly the same sequence of updates as in FloydWarshall.floydWarshall and
+// without negative cycles d and pred are bit-identical to it.
+public class FloydWarshallBlocked {
+
+	static final int INF = Integer.MAX_VALUE / 2;
+	static final int B = 64;
+
+	// precondition: d[i * n + i] == 0
+	public static int[] floydWarshall(int[] d, int n) {
+		return floydWarshall(d, n, ForkJoinPool.commonPool());
+	}
+
+	public static int[] floydWarshall(int[] d, int n, ForkJoinPool pool) {
+		int[] pred = new int[n * n];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				pred[i * n + j] = (i == j || d[i * n + j] == INF) ? -1 : i;
+		int blocks = (n + B - 1) / B;
+		// rowSnap[k' * n + j] = d[k][j], predSnap[k' * n + j] = pred[k][j] and colSnap[i * B + k'] = d[i][k]
+		// at the moment pivot k = kb + k' is applied
+		int[] rowSnap = new int[B * n];
+		int[] predSnap = new int[B * n];
+		int[] colSnap = new int[n * B];
+		for (int kb = 0; kb < n; kb += B) {
+			int ke = Math.min(n, kb + B);
+			int K = kb / B;
+
+			// diagonal tile
+			for (int k = kb; k < ke; k++) {
+				int k1 = k - kb;
+				for (int i = kb; i < ke; i++) {
+					colSnap[i * B + k1] = d[i * n + k];
+					rowSnap[k1 * n + i] = d[k * n + i];
+					predSnap[k1 * n + i] = pred[k * n + i];
+				}
+				relax(d, pred, n, kb, ke, kb, ke, k, rowSnap, predSnap, colSnap);
+			}
+
+			// tiles of row K and column K
+			int kb0 = kb;
+			pool.submit(() -> IntStream.range(0, 2 * blocks).parallel().forEach(t -> {
+				int J = t % blocks;
+				if (J == K)
+					return;
+				int jb = J * B;
+				int je = Math.min(n, jb + B);
+				for (int k = kb0; k < ke; k++) {
+					int k1 = k - kb0;
+					if (t < blocks) {
+						for (int j = jb; j < je; j++) {
+							rowSnap[k1 * n + j] = d[k * n + j];
+							predSnap[k1 * n + j] = pred[k * n + j];
+						}
+						relax(d, pred, n, kb0, ke, jb, je, k, rowSnap, predSnap, colSnap);
+					} else {
+						for (int i = jb; i < je; i++)
+							colSnap[i * B + k1] = d[i * n + k];
+						relax(d, pred, n, jb, je, kb0, ke, k, rowSnap, predSnap, colSnap);
+					}
+				}
+			})).join();
+
+			// remaining tiles
+			pool.submit(() -> IntStream.range(0, blocks * blocks).parallel().forEach(t -> {
+				int I = t / blocks;
+				int J = t % blocks;
+				if (I == K || J == K)
+					return;
+				int ib = I * B;
+				int jb = J * B;
+				relaxTile(d, pred, n, ib, Math.min(n, ib + B), jb, Math.min(n, jb + B), kb0, ke, rowSnap, predSnap, colSnap);
+			})).join();
+		}
+		for (int i = 0; i < n; i++)
+			if (d[i * n + i] < 0)
+				return null;
+		return pred;
+	}
+
+	static void relax(int[] d, int[] pred, int n, int ib, int ie, int jb, int je, int k, int[] rowSnap, int[] predSnap, int[] colSnap) {
+		int row = (k % B) * n;
+		for (int i = ib; i < ie; i++) {
+			int dik = colSnap[i * B + k % B];
+			int base = i * n;
+			for (int j = jb; j < je; j++) {
+				int nd = dik + rowSnap[row + j];
+				if (d[base + j] > nd) {
+					d[base + j] = nd;
+					pred[base + j] = predSnap[row + j];
+				}
+			}
+		}
+	}
+
+	// pivots kb..ke-1 applied to a tile that is neither in row K nor in column K, row i of the tile stays in L1
+	static void relaxTile(int[] d, int[] pred, int n, int ib, int ie, int jb, int je, int kb, int ke, int[] rowSnap, int[] predSnap, int[] colSnap) {
+		for (int i = ib; i < ie; i++) {
+			int base = i * n;
+			for (int k1 = 0; k1 < ke - kb; k1++) {
+				int dik = colSnap[i * B + k1];
+				int row = k1 * n;
+				for (int j = jb; j < je; j++) {
+					int nd = dik + rowSnap[row + j];
+					if (d[base + j] > nd) {
+						d[base + j] = nd;
+						pred[base + j] = predSnap[row + j];
+					}
+				}
+			}
+		}
+	}
+
+	public static int[] restorePath(int[] pred, int n, int i, int j) {
+		int[] path = new int[n];
+		int pos = n;
+		while (true) {
+			path[--pos] = j;
+			if (i == j) break;
+			j = pred[i * n + j];
+		}
+		return Arrays.copyOfRange(path, pos, n);
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 200; step++) {
+			int n = rnd.nextInt(200) + 1;
+			int[][] d = new int[n][n];
+			for (int i = 0; i < n; i++)
+				for (int j = 0; j < n; j++)
+					d[i][j] = i == j ? 0 : rnd.nextInt(4) == 0 ? rnd.nextInt(10) - (step % 2) : INF;
+			int[] flat = new int[n * n];
+			for (int i = 0; i < n; i++)
+				System.arraycopy(d[i], 0, flat, i * n, n);
+			int[][] pred1 = FloydWarshall.floydWarshall(d);
+			int[] pred2 = floydWarshall(flat, n);
+			if ((pred1 == null) != (pred2 == null))
+				throw new RuntimeException();
+			if (pred1 == null)
+				continue;
+			for (int i = 0; i < n; i++) {
+				if (!Arrays.equals(d[i], Arrays.copyOfRange(flat, i * n, (i + 1) * n)) || !Arrays.equals(pred1[i], Arrays.copyOfRange(pred2, i * n, (i + 1) * n)))
+					throw new RuntimeException();
+			}
+			int a = rnd.nextInt(n);
+			int b = rnd.nextInt(n);
+			if (d[a][b] < INF && !Arrays.equals(FloydWarshall.restorePath(pred1, a, b), restorePath(pred2, n, a, b)))
+				throw new RuntimeException();
+		}
+
+		int n = 2000;
+		int[][] d = new int[n][n];
+		int[] flat = new int[n * n];
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				flat[i * n + j] = d[i][j] = i == j ? 0 : rnd.nextInt(1000);
+		long time = System.currentTimeMillis();
+		FloydWarshall.floydWarshall(d);
+		long time1 = System.currentTimeMillis();
+		floydWarshall(flat, n);
+		long time2 = System.currentTimeMillis();
+		System.out.println("n = " + n + " textbook = " + (time1 - time) + " ms, blocked = " + (time2 - time1) + " ms, threads = " + ForkJoinPool.commonPool().getParallelism());
+	}
+}
@@ -0,0 +1,154 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Gomory–Hu_tree by Gusfield's algorithm: n - 1 max flows on the original graph
+// For i = 1..n-1 the flow between i and parent[i] gives the tree edge (i, parent[i]), every j > i with the same
+// parent on the source side of the cut is moved below i. The min cut between u and v is the lightest edge on the
+// tree path. Flows are computed speculatively in parallel for a window of vertices, each slot of the window on
+// its own residual graph, and committed in order: a result is used only if parent[i] did not change meanwhile,
+// otherwise it is recomputed, so the tree is the one the sequential algorithm builds.
+public class GomoryHuTree {
+
+	final int nodes;
+	final List<int[]> edges = new ArrayList<>();
+	public int[] parent;
+	public long[] weight;
+	int[] depth;
+
+	public GomoryHuTree(int nodes) {
+		this.nodes = nodes;
+	}
+
+	// undirected edge
+	public void addEdge(int u, int v, int cap) {
+		edges.add(new int[]{u, v, cap});
+	}
+
+	public void build() {
+		build(ForkJoinPool.commonPool());
+	}
+
+	public void build(ForkJoinPool pool) {
+		parent = new int[nodes];
+		weight = new long[nodes];
+		// every copy has the same edge layout, so capacities are reset from the first one
+		int[] initialCap = newResidualGraph().cap.clone();
+		int window = 2 * pool.getParallelism();
+		// one residual graph per slot of the window, created on first use and dropped with the build
+		MaxFlowDinicFlat[] residual = new MaxFlowDinicFlat[window];
+		int[] usedParent = new int[nodes];
+		Arrays.fill(usedParent, -1);
+		long[] flow = new long[nodes];
+		boolean[][] cut = new boolean[nodes][];
+		for (int next = 1; next < nodes; ) {
+			int[] todo = IntStream.range(next, Math.min(nodes, next + window)).filter(i -> usedParent[i] != parent[i]).toArray();
+			pool.submit(() -> IntStream.range(0, todo.length).parallel().forEach(k -> {
+				int i = todo[k];
+				if (residual[k] == null)
+					residual[k] = newResidualGraph();
+				MaxFlowDinicFlat g = residual[k];
+				System.arraycopy(initialCap, 0, g.cap, 0, initialCap.length);
+				usedParent[i] = parent[i];
+				flow[i] = g.maxFlow(i, parent[i]);
+				cut[i] = g.minCut();
+			})).join();
+			for (; next < nodes && usedParent[next] == parent[next]; next++) {
+				int i = next;
+				weight[i] = flow[i];
+				for (int j = i + 1; j < nodes; j++)
+					if (parent[j] == parent[i] && cut[i][j])
+						parent[j] = i;
+				cut[i] = null;
+			}
+		}
+		parent[0] = -1;
+		depth = new int[nodes];
+		// parent[i] < i
+		for (int i = 1; i < nodes; i++)
+			depth[i] = depth[parent[i]] + 1;
+	}
+
+	MaxFlowDinicFlat newResidualGraph() {
+		MaxFlowDinicFlat g = new MaxFlowDinicFlat(nodes);
+		for (int[] e : edges) {
+			// the reverse residual edge carries the capacity of the other direction
+			g.addEdge(e[0], e[1], e[2]);
+			g.cap[g.edges - 1] = e[2];
+		}
+		g.relayout();
+		return g;
+	}
+
+	// min cut between u and v along the tree path
+	public long minCut(int u, int v) {
+		long res = Long.MAX_VALUE;
+		while (u != v) {
+			if (depth[u] < depth[v]) {
+				int t = u;
+				u = v;
+				v = t;
+			}
+			res = Math.min(res, weight[u]);
+			u = parent[u];
+		}
+		return res;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(15) + 2;
+			int m = rnd.nextInt(40);
+			GomoryHuTree tree = new GomoryHuTree(n);
+			int[][] e = new int[m][];
+			for (int i = 0; i < m; i++) {
+				e[i] = new int[]{rnd.nextInt(n), rnd.nextInt(n), rnd.nextInt(100)};
+				tree.addEdge(e[i][0], e[i][1], e[i][2]);
+			}
+			tree.build(pool);
+			for (int u = 0; u < n; u++) {
+				for (int v = u + 1; v < n; v++) {
+					List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+					for (int[] edge : e) {
+						MaxFlowDinic.addEdge(graph, edge[0], edge[1], edge[2]);
+						MaxFlowDinic.addEdge(graph, edge[1], edge[0], edge[2]);
+					}
+					if (tree.minCut(u, v) != MaxFlowDinic.maxFlow(graph, u, v))
+						throw new RuntimeException();
+				}
+			}
+		}
+		pool.shutdown();
+
+		// n - 1 serial MaxFlowDinic calls against the tree built with 1..4 threads
+		int n = 1000;
+		int m = 10_000;
+		int[][] e = new int[m][];
+		for (int i = 0; i < m; i++)
+			e[i] = new int[]{rnd.nextInt(n), rnd.nextInt(n), rnd.nextInt(1000)};
+		long time = System.currentTimeMillis();
+		for (int i = 1; i < n; i++) {
+			List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int[] edge : e) {
+				MaxFlowDinic.addEdge(graph, edge[0], edge[1], edge[2]);
+				MaxFlowDinic.addEdge(graph, edge[1], edge[0], edge[2]);
+			}
+			MaxFlowDinic.maxFlow(graph, i, 0);
+		}
+		System.out.println(n - 1 + " serial MaxFlowDinic calls: " + (System.currentTimeMillis() - time) + " ms");
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			pool = new ForkJoinPool(threads);
+			GomoryHuTree tree = new GomoryHuTree(n);
+			for (int[] edge : e)
+				tree.addEdge(edge[0], edge[1], edge[2]);
+			time = System.currentTimeMillis();
+			tree.build(pool);
+			System.out.println("Gomory-Hu tree, " + threads + " threads: " + (System.currentTimeMillis() - time) + " ms");
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// https://en.wikipedia.org/wiki/Johnson%27s_algorithm in O(V*E + V*E*log(V)), memory O(V + E)
+// Potentials h come from one BellmanFord2 run from a virtual source, after that every edge cost
+// cost + h[u] - h[v] is non-negative and Dijkstra runs from all sources in parallel.
+public class Johnson {
+
+	static final int INF = Integer.MAX_VALUE;
+
+	public interface RowConsumer {
+		// called concurrently from worker threads, dist and pred are reused after the call returns
+		void accept(int s, int[] dist, int[] pred);
+	}
+
+	static class Buffers {
+		final int[] prio;
+		final int[] pred;
+		final int[] dist;
+		final CsrGraph.LongHeap q;
+
+		Buffers(int n) {
+			prio = new int[n];
+			pred = new int[n];
+			dist = new int[n];
+			q = new CsrGraph.LongHeap(n);
+		}
+	}
+
+	// returns false if there is a negative cycle, dist[v] == INF if v is unreachable from s
+	public static boolean allPairs(int n, List<BellmanFord2.Edge> edges, RowConsumer out) {
+		return allPairs(n, edges, out, ForkJoinPool.commonPool());
+	}
+
+	public static boolean allPairs(int n, List<BellmanFord2.Edge> edges, RowConsumer out, ForkJoinPool pool) {
+		List<BellmanFord2.Edge> extended = new ArrayList<>(edges);
+		for (int v = 0; v < n; v++)
+			extended.add(new BellmanFord2.Edge(n, v, 0));
+		int[] h = new int[n + 1];
+		if (!BellmanFord2.bellmanFord(n + 1, extended, n, h, new int[n + 1]))
+			return false;
+
+		int m = edges.size();
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] cost = new int[m];
+		for (int i = 0; i < m; i++) {
+			BellmanFord2.Edge e = edges.get(i);
+			from[i] = e.u;
+			to[i] = e.v;
+			cost[i] = e.cost + h[e.u] - h[e.v];
+		}
+		CsrGraph g = CsrGraph.build(n, from, to, cost);
+
+		// one range of sources per thread, its buffers live only as long as the task
+		int chunks = pool.getParallelism();
+		pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+			Buffers b = new Buffers(n);
+			int last = (int) ((long) n * (c + 1) / chunks);
+			for (int s = (int) ((long) n * c / chunks); s < last; s++) {
+				dijkstra(g, s, b.prio, b.pred, b.q);
+				for (int v = 0; v < n; v++)
+					b.dist[v] = b.prio[v] == INF ? INF : b.prio[v] - h[s] + h[v];
+				out.accept(s, b.dist, b.pred);
+			}
+		})).join();
+		return true;
+	}
+
+	// same as DijkstraHeap.shortestPaths(CsrGraph, ...), but with a reusable heap
+	static void dijkstra(CsrGraph g, int s, int[] prio, int[] pred, CsrGraph.LongHeap q) {
+		Arrays.fill(pred, -1);
+		Arrays.fill(prio, INF);
+		prio[s] = 0;
+		q.size = 0;
+		q.add(s);
+		while (!q.isEmpty()) {
+			long cur = q.removeMin();
+			int u = (int) cur;
+			if (cur >>> 32 != prio[u])
+				continue;
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				int nprio = prio[u] + g.cost[e];
+				if (prio[v] > nprio) {
+					prio[v] = nprio;
+					pred[v] = u;
+					q.add(((long) nprio << 32) | v);
+				}
+			}
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(30) + 1;
+			int m = rnd.nextInt(100);
+			List<BellmanFord2.Edge> edges = new ArrayList<>();
+			int[][] d = new int[n][n];
+			for (int i = 0; i < n; i++) {
+				Arrays.fill(d[i], FloydWarshall.INF);
+				d[i][i] = 0;
+			}
+			for (int i = 0; i < m; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int cost = rnd.nextInt(20) - 2;
+				edges.add(new BellmanFord2.Edge(u, v, cost));
+				d[u][v] = Math.min(d[u][v], cost);
+			}
+			boolean noNegativeCycle = FloydWarshall.floydWarshall(d) != null;
+			int[][] res = new int[n][];
+			boolean ok = allPairs(n, edges, (s, dist, pred) -> {
+				res[s] = dist.clone();
+				boolean[] tight = new boolean[n];
+				for (BellmanFord2.Edge e : edges) {
+					if (dist[e.u] != INF && dist[e.v] > dist[e.u] + e.cost)
+						throw new RuntimeException();
+					if (pred[e.v] == e.u && dist[e.u] + e.cost == dist[e.v])
+						tight[e.v] = true;
+				}
+				for (int v = 0; v < n; v++)
+					if (pred[v] != -1 && !tight[v])
+						throw new RuntimeException();
+			});
+			if (ok != noNegativeCycle)
+				throw new RuntimeException();
+			if (!ok)
+				continue;
+			for (int i = 0; i < n; i++)
+				for (int j = 0; j < n; j++)
+					if ((d[i][j] > FloydWarshall.INF / 2 ? INF : d[i][j]) != res[i][j])
+						throw new RuntimeException();
+		}
+	}
+}
@@ -0,0 +1,282 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Dinic%27s_algorithm on flat head/next/to/cap arrays with an explicit stack DFS
+// addEdge appends edge e and its reverse edge e ^ 1, maxFlow first regroups the edges of every vertex into a
+// consecutive block (rev[e] is then the reverse edge), cap holds residual capacities.
+// With capacity scaling each phase only uses residual capacities >= delta, O(V * E * log(U)) overall.
+public class MaxFlowDinicFlat {
+
+	int nodes;
+	int edges;
+	int[] head;
+	int[] next;
+	int[] to;
+	int[] cap;
+	int maxCap;
+	int[] dist;
+	int[] ptr;
+	int[] path;
+	int[] rev;
+	// position[i] is the current index of the i-th added edge
+	int[] position = new int[8];
+	int src = -1;
+
+	public MaxFlowDinicFlat(int nodes) {
+		this.nodes = nodes;
+		head = new int[nodes];
+		Arrays.fill(head, -1);
+		next = new int[16];
+		to = new int[16];
+		cap = new int[16];
+		dist = new int[nodes];
+		ptr = new int[nodes];
+		path = new int[nodes];
+	}
+
+	public void addEdge(int s, int t, int cap) {
+		if (edges + 2 > to.length) {
+			int size = Math.max(16, to.length * 2);
+			next = Arrays.copyOf(next, size);
+			this.cap = Arrays.copyOf(this.cap, size);
+			to = Arrays.copyOf(to, size);
+		}
+		maxCap = Math.max(maxCap, cap);
+		if (edges / 2 == position.length)
+			position = Arrays.copyOf(position, position.length * 2);
+		position[edges / 2] = edges;
+		add(s, t, cap);
+		add(t, s, 0);
+	}
+
+	void add(int s, int t, int c) {
+		to[edges] = t;
+		cap[edges] = c;
+		next[edges] = head[s];
+		head[s] = edges++;
+	}
+
+	public long maxFlow(int src, int dest) {
+		return maxFlow(src, dest, false);
+	}
+
+	public long maxFlow(int src, int dest, boolean capacityScaling) {
+		this.src = src;
+		relayout();
+		long flow = 0;
+		for (int delta = capacityScaling ? Math.max(1, Integer.highestOneBit(maxCap)) : 1; delta > 0; delta >>= 1)
+			while (bfs(src, dest, delta))
+				flow += blockingFlow(src, dest, delta);
+		return flow;
+	}
+
+	// renumbers edges so that the edges of every vertex are consecutive and in insertion order,
+	// the linked lists then walk memory sequentially
+	void relayout() {
+		if (rev != null && rev.length == edges)
+			return;
+		int[] start = new int[nodes + 1];
+		int[] from = new int[edges];
+		for (int u = 0; u < nodes; u++)
+			for (int e = head[u]; e != -1; e = next[e]) {
+				from[e] = u;
+				++start[u + 1];
+			}
+		for (int u = 0; u < nodes; u++)
+			start[u + 1] += start[u];
+		int[] id = new int[edges];
+		int[] pos = Arrays.copyOf(start, nodes);
+		for (int e = 0; e < edges; e++)
+			id[e] = pos[from[e]]++;
+		int[] nto = new int[edges];
+		int[] ncap = new int[edges];
+		int[] nnext = new int[edges];
+		int[] oldRev = rev;
+		rev = new int[edges];
+		for (int e = 0; e < edges; e++) {
+			nto[id[e]] = to[e];
+			ncap[id[e]] = cap[e];
+			rev[id[e]] = id[oldRev != null && e < oldRev.length ? oldRev[e] : e ^ 1];
+		}
+		for (int u = 0; u < nodes; u++) {
+			head[u] = start[u] == start[u + 1] ? -1 : start[u];
+			for (int e = start[u]; e < start[u + 1]; e++)
+				nnext[e] = e + 1 < start[u + 1] ? e + 1 : -1;
+		}
+		for (int i = 0; i < edges / 2; i++)
+			position[i] = id[position[i]];
+		to = nto;
+		cap = ncap;
+		next = nnext;
+	}
+
+	boolean bfs(int src, int dest, int delta) {
+		Arrays.fill(dist, -1);
+		dist[src] = 0;
+		int[] q = ptr;
+		int qt = 0;
+		q[qt++] = src;
+		for (int qh = 0; qh < qt; qh++) {
+			int u = q[qh];
+			for (int e = head[u]; e != -1; e = next[e]) {
+				int v = to[e];
+				if (dist[v] < 0 && cap[e] >= delta) {
+					dist[v] = dist[u] + 1;
+					q[qt++] = v;
+				}
+			}
+		}
+		return dist[dest] >= 0;
+	}
+
+	long blockingFlow(int src, int dest, int delta) {
+		System.arraycopy(head, 0, ptr, 0, nodes);
+		long flow = 0;
+		int depth = 0;
+		int u = src;
+		while (true) {
+			if (u == dest) {
+				int f = Integer.MAX_VALUE;
+				for (int i = 0; i < depth; i++)
+					f = Math.min(f, cap[path[i]]);
+				int firstSaturated = -1;
+				for (int i = 0; i < depth; i++) {
+					int e = path[i];
+					cap[e] -= f;
+					cap[rev[e]] += f;
+					if (firstSaturated == -1 && cap[e] < delta)
+						firstSaturated = i;
+				}
+				flow += f;
+				depth = firstSaturated;
+				u = depth == 0 ? src : to[path[depth - 1]];
+				continue;
+			}
+			int e = ptr[u];
+			while (e != -1 && (cap[e] < delta || dist[to[e]] != dist[u] + 1))
+				e = next[e];
+			ptr[u] = e;
+			if (e != -1) {
+				path[depth++] = e;
+				u = to[e];
+				continue;
+			}
+			// dead end: retreat and skip the edge that led here
+			dist[u] = -1;
+			if (depth == 0)
+				return flow;
+			u = to[rev[path[--depth]]];
+			ptr[u] = next[ptr[u]];
+		}
+	}
+
+	// after maxFlow: cut[v] is true iff v is on the source side of a minimum cut
+	public boolean[] minCut() {
+		boolean[] cut = new boolean[nodes];
+		int[] q = new int[nodes];
+		int qt = 0;
+		q[qt++] = src;
+		cut[src] = true;
+		for (int qh = 0; qh < qt; qh++) {
+			int u = q[qh];
+			for (int e = head[u]; e != -1; e = next[e]) {
+				if (!cut[to[e]] && cap[e] > 0) {
+					cut[to[e]] = true;
+					q[qt++] = to[e];
+				}
+			}
+		}
+		return cut;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		MaxFlowDinicFlat flow = new MaxFlowDinicFlat(3);
+		flow.addEdge(0, 1, 3);
+		flow.addEdge(0, 2, 2);
+		flow.addEdge(1, 2, 2);
+		System.out.println(4 == flow.maxFlow(0, 2));
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 10_000; step++) {
+			int n = rnd.nextInt(20) + 2;
+			int m = rnd.nextInt(60);
+			List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			MaxFlowDinicFlat f1 = new MaxFlowDinicFlat(n);
+			MaxFlowDinicFlat f2 = new MaxFlowDinicFlat(n);
+			int[][] e = new int[m][];
+			for (int i = 0; i < m; i++) {
+				e[i] = new int[]{rnd.nextInt(n), rnd.nextInt(n), rnd.nextInt(1000)};
+				MaxFlowDinic.addEdge(graph, e[i][0], e[i][1], e[i][2]);
+				f1.addEdge(e[i][0], e[i][1], e[i][2]);
+				f2.addEdge(e[i][0], e[i][1], e[i][2]);
+			}
+			int expected = MaxFlowDinic.maxFlow(graph, 0, n - 1);
+			if (f1.maxFlow(0, n - 1) != expected || f2.maxFlow(0, n - 1, true) != expected)
+				throw new RuntimeException();
+			boolean[] cut = f2.minCut();
+			long cutCap = 0;
+			for (int[] edge : e)
+				if (cut[edge[0]] && !cut[edge[1]])
+					cutCap += edge[2];
+			if (cutCap != expected || !cut[0] || cut[n - 1])
+				throw new RuntimeException();
+
+			// edges added after maxFlow, the next call augments the residual graph
+			int k = rnd.nextInt(10);
+			for (int i = 0; i < k; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int c = rnd.nextInt(1000);
+				MaxFlowDinic.addEdge(graph, u, v, c);
+				f1.addEdge(u, v, c);
+			}
+			if (f1.maxFlow(0, n - 1) != MaxFlowDinic.maxFlow(graph, 0, n - 1))
+				throw new RuntimeException();
+		}
+
+		// a path of 1M vertices would overflow the stack of the recursive version
+		int n = 1_000_000;
+		MaxFlowDinicFlat chain = new MaxFlowDinicFlat(n);
+		for (int i = 0; i + 1 < n; i++)
+			chain.addEdge(i, i + 1, 5 + i % 3);
+		System.out.println(5 == chain.maxFlow(0, n - 1));
+
+		// bipartite supply graph
+		int left = 100_000;
+		int right = 100_000;
+		n = left + right + 2;
+		List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		MaxFlowDinicFlat f1 = new MaxFlowDinicFlat(n);
+		MaxFlowDinicFlat f2 = new MaxFlowDinicFlat(n);
+		for (int i = 0; i < left; i++) {
+			int c = rnd.nextInt(100);
+			MaxFlowDinic.addEdge(graph, n - 2, i, c);
+			f1.addEdge(n - 2, i, c);
+			f2.addEdge(n - 2, i, c);
+			for (int k = 0; k < 10; k++) {
+				int j = left + rnd.nextInt(right);
+				c = rnd.nextInt(30);
+				MaxFlowDinic.addEdge(graph, i, j, c);
+				f1.addEdge(i, j, c);
+				f2.addEdge(i, j, c);
+			}
+		}
+		for (int j = 0; j < right; j++) {
+			int c = rnd.nextInt(100);
+			MaxFlowDinic.addEdge(graph, left + j, n - 1, c);
+			f1.addEdge(left + j, n - 1, c);
+			f2.addEdge(left + j, n - 1, c);
+		}
+		long time = System.currentTimeMillis();
+		int res = MaxFlowDinic.maxFlow(graph, n - 2, n - 1);
+		long time1 = System.currentTimeMillis();
+		long res1 = f1.maxFlow(n - 2, n - 1);
+		long time2 = System.currentTimeMillis();
+		long res2 = f2.maxFlow(n - 2, n - 1, true);
+		long time3 = System.currentTimeMillis();
+		if (res != res1 || res != res2)
+			throw new RuntimeException();
+		System.out.println("MaxFlowDinic = " + (time1 - time) + " ms, flat = " + (time2 - time1) + " ms, flat with scaling = " + (time3 - time2) + " ms");
+	}
+}
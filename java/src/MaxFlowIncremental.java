@@ -0,0 +1,200 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// Maximum flow under capacity changes, warm-started from the previous flow.
+// The residual graph of MaxFlowDinicFlat is kept between solves. Increasing a capacity only adds residual
+// capacity, the next maxFlow() augments from the current flow. Decreasing the capacity of edge (u, v) below
+// its flow leaves excess d at u and deficit d at v: d is first rerouted from u to v in the residual graph,
+// the rest is returned from u to the source and from the sink to v, which lowers the flow value.
+public class MaxFlowIncremental {
+
+	final MaxFlowDinicFlat g;
+	final int src;
+	final int dest;
+	long flow;
+	boolean augment;
+	int[] parent;
+	int[] stamp;
+	int[] queue;
+	int visit;
+
+	public MaxFlowIncremental(int nodes, int src, int dest) {
+		g = new MaxFlowDinicFlat(nodes);
+		this.src = src;
+		this.dest = dest;
+		parent = new int[nodes];
+		stamp = new int[nodes];
+		queue = new int[nodes];
+	}
+
+	// returns the edge id for setCapacity and flow
+	public int addEdge(int s, int t, int cap) {
+		g.addEdge(s, t, cap);
+		augment = true;
+		return g.edges / 2 - 1;
+	}
+
+	public long maxFlow() {
+		if (augment) {
+			flow += g.maxFlow(src, dest);
+			augment = false;
+		}
+		return flow;
+	}
+
+	public long flow(int edge) {
+		g.relayout();
+		return g.cap[g.rev[g.position[edge]]];
+	}
+
+	public void setCapacity(int edge, int capacity) {
+		g.relayout();
+		int e = g.position[edge];
+		int r = g.rev[e];
+		int f = g.cap[r];
+		augment = true;
+		if (capacity >= f) {
+			g.cap[e] = capacity - f;
+			return;
+		}
+		int u = g.to[r];
+		int v = g.to[e];
+		long excess = f - capacity;
+		g.cap[e] = 0;
+		g.cap[r] = capacity;
+		excess -= augmentPaths(u, v, excess);
+		if (excess == 0)
+			return;
+		// the excess arrived at u on paths from the source and the deficit leaves v on paths to the sink
+		if (u != src)
+			augmentPaths(u, src, excess);
+		if (v != dest)
+			augmentPaths(dest, v, excess);
+		flow -= excess;
+	}
+
+	// sends up to limit units from a to b along shortest residual paths, returns the amount sent
+	long augmentPaths(int a, int b, long limit) {
+		long sent = 0;
+		while (sent < limit && bfs(a, b)) {
+			long d = limit - sent;
+			for (int v = b; v != a; v = g.to[g.rev[parent[v]]])
+				d = Math.min(d, g.cap[parent[v]]);
+			for (int v = b; v != a; v = g.to[g.rev[parent[v]]]) {
+				g.cap[parent[v]] -= d;
+				g.cap[g.rev[parent[v]]] += d;
+			}
+			sent += d;
+		}
+		return sent;
+	}
+
+	// vertices are marked with a fresh stamp, so a search only touches what it visits
+	boolean bfs(int a, int b) {
+		if (++visit == 0) {
+			Arrays.fill(stamp, 0);
+			visit = 1;
+		}
+		stamp[a] = visit;
+		int qt = 0;
+		queue[qt++] = a;
+		for (int qh = 0; qh < qt; qh++) {
+			int u = queue[qh];
+			for (int e = g.head[u]; e != -1; e = g.next[e]) {
+				int v = g.to[e];
+				if (stamp[v] != visit && g.cap[e] > 0) {
+					stamp[v] = visit;
+					parent[v] = e;
+					if (v == b)
+						return true;
+					queue[qt++] = v;
+				}
+			}
+		}
+		return false;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(20) + 2;
+			MaxFlowIncremental inc = new MaxFlowIncremental(n, 0, n - 1);
+			List<int[]> edges = new ArrayList<>();
+			for (int op = 0; op < 100; op++) {
+				if (edges.isEmpty() || rnd.nextInt(5) == 0) {
+					int[] e = {rnd.nextInt(n), rnd.nextInt(n), rnd.nextInt(100)};
+					edges.add(e);
+					inc.addEdge(e[0], e[1], e[2]);
+				} else {
+					int i = rnd.nextInt(edges.size());
+					edges.get(i)[2] = rnd.nextInt(100);
+					inc.setCapacity(i, edges.get(i)[2]);
+				}
+				List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+				for (int[] e : edges)
+					MaxFlowDinic.addEdge(graph, e[0], e[1], e[2]);
+				if (inc.maxFlow() != MaxFlowDinic.maxFlow(graph, 0, n - 1))
+					throw new RuntimeException();
+				// flows respect capacities and are conserved
+				long[] balance = new long[n];
+				for (int i = 0; i < edges.size(); i++) {
+					long f = inc.flow(i);
+					if (f < 0 || f > edges.get(i)[2])
+						throw new RuntimeException();
+					balance[edges.get(i)[0]] -= f;
+					balance[edges.get(i)[1]] += f;
+				}
+				for (int v = 1; v < n - 1; v++)
+					if (balance[v] != 0)
+						throw new RuntimeException();
+				if (balance[n - 1] != inc.maxFlow())
+					throw new RuntimeException();
+			}
+		}
+
+		// image segmentation style grid, a few data terms change between solves
+		int width = 300;
+		int height = 300;
+		int n = width * height + 2;
+		List<int[]> edges = new ArrayList<>();
+		for (int p = 1; p <= width * height; p++) {
+			edges.add(new int[]{0, p, rnd.nextInt(100)});
+			edges.add(new int[]{p, n - 1, rnd.nextInt(100)});
+			if (p % width != 0) {
+				edges.add(new int[]{p, p + 1, rnd.nextInt(50)});
+				edges.add(new int[]{p + 1, p, rnd.nextInt(50)});
+			}
+			if (p + width <= width * height) {
+				edges.add(new int[]{p, p + width, rnd.nextInt(50)});
+				edges.add(new int[]{p + width, p, rnd.nextInt(50)});
+			}
+		}
+		MaxFlowIncremental inc = new MaxFlowIncremental(n, 0, n - 1);
+		for (int[] e : edges)
+			inc.addEdge(e[0], e[1], e[2]);
+		inc.maxFlow();
+		long incrementalTime = 0;
+		long rebuildTime = 0;
+		for (int solve = 0; solve < 20; solve++) {
+			long time = System.currentTimeMillis();
+			for (int k = 0; k < 10; k++) {
+				int i = rnd.nextInt(edges.size());
+				edges.get(i)[2] = rnd.nextInt(100);
+				inc.setCapacity(i, edges.get(i)[2]);
+			}
+			long res1 = inc.maxFlow();
+			incrementalTime += System.currentTimeMillis() - time;
+
+			time = System.currentTimeMillis();
+			MaxFlowDinicFlat flat = new MaxFlowDinicFlat(n);
+			for (int[] e : edges)
+				flat.addEdge(e[0], e[1], e[2]);
+			long res2 = flat.maxFlow(0, n - 1);
+			rebuildTime += System.currentTimeMillis() - time;
+			if (res1 != res2)
+				throw new RuntimeException();
+		}
+		System.out.println("20 solves with 10 changes each: incremental = " + incrementalTime + " ms, rebuild = " + rebuildTime + " ms");
+	}
+}
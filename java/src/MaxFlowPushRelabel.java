@@ -0,0 +1,328 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Push%E2%80%93relabel_maximum_flow_algorithm
+// Highest-label push-relabel on adjacency arrays in O(V^2 * sqrt(E)), memory O(V + E).
+// Heuristics: periodic global relabeling (reverse BFS from the sink) and the gap heuristic.
+// Only the first phase runs (maximum preflow), its value is the maximum flow.
+public class MaxFlowPushRelabel {
+
+	int nodes;
+	int edges;
+	int[] edgeFrom = new int[16];
+	int[] edgeTo = new int[16];
+	int[] edgeCap = new int[16];
+
+	int[] offsets;
+	int[] to;
+	int[] cap;
+	int[] rev;
+
+	int[] height;
+	long[] excess;
+	int[] cur;
+	// active vertices by height (singly linked), all vertices below nodes by height (doubly linked) for the gap check
+	int[] activeHead;
+	int[] activeNext;
+	int[] levelHead;
+	int[] levelNext;
+	int[] levelPrev;
+	int[] queue;
+	int highest;
+	int maxLevel;
+	long work;
+
+	public MaxFlowPushRelabel(int nodes) {
+		this.nodes = nodes;
+	}
+
+	public void addEdge(int s, int t, int cap) {
+		if (edges == edgeTo.length) {
+			edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+			edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+			edgeCap = Arrays.copyOf(edgeCap, edges * 2);
+		}
+		edgeFrom[edges] = s;
+		edgeTo[edges] = t;
+		edgeCap[edges] = cap;
+		++edges;
+	}
+
+	// residual graph in CSR form: every edge (u, v) gets a reverse edge (v, u) with capacity 0, rev links both
+	void build() {
+		int n = nodes;
+		offsets = new int[n + 1];
+		for (int i = 0; i < edges; i++) {
+			++offsets[edgeFrom[i] + 1];
+			++offsets[edgeTo[i] + 1];
+		}
+		for (int u = 0; u < n; u++)
+			offsets[u + 1] += offsets[u];
+		int[] pos = Arrays.copyOf(offsets, n);
+		to = new int[2 * edges];
+		cap = new int[2 * edges];
+		rev = new int[2 * edges];
+		for (int i = 0; i < edges; i++) {
+			int u = edgeFrom[i];
+			int v = edgeTo[i];
+			int a = pos[u]++;
+			int b = pos[v]++;
+			to[a] = v;
+			cap[a] = edgeCap[i];
+			rev[a] = b;
+			to[b] = u;
+			rev[b] = a;
+		}
+	}
+
+	public long maxFlow(int src, int dest) {
+		if (src == dest)
+			return 0;
+		int n = nodes;
+		build();
+		height = new int[n];
+		excess = new long[n];
+		cur = new int[n];
+		activeHead = new int[n];
+		activeNext = new int[n];
+		levelHead = new int[n];
+		levelNext = new int[n];
+		levelPrev = new int[n];
+		queue = new int[n];
+
+		for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+			int c = cap[e];
+			if (c > 0) {
+				cap[e] = 0;
+				cap[rev[e]] += c;
+				excess[to[e]] += c;
+				excess[src] -= c;
+			}
+		}
+		globalRelabel(src, dest);
+		long relabelThreshold = 6L * n + offsets[n];
+		while (highest >= 0) {
+			int u = activeHead[highest];
+			if (u == -1) {
+				--highest;
+				continue;
+			}
+			activeHead[highest] = activeNext[u];
+			discharge(u, dest);
+			if (work > relabelThreshold) {
+				globalRelabel(src, dest);
+				work = 0;
+			}
+		}
+		return excess[dest];
+	}
+
+	void discharge(int u, int dest) {
+		int n = nodes;
+		int h = height[u];
+		while (true) {
+			int e = cur[u];
+			int end = offsets[u + 1];
+			for (; e < end; e++) {
+				int v = to[e];
+				if (cap[e] > 0 && height[v] == h - 1) {
+					int d = (int) Math.min(excess[u], cap[e]);
+					cap[e] -= d;
+					cap[rev[e]] += d;
+					if (excess[v] == 0 && v != dest)
+						activate(v);
+					excess[v] += d;
+					excess[u] -= d;
+					if (excess[u] == 0)
+						break;
+				}
+			}
+			cur[u] = e;
+			if (excess[u] == 0)
+				return;
+
+			// gap: u is the only vertex at height h, nothing above h can reach the sink anymore
+			if (levelHead[h] == u && levelNext[u] == -1) {
+				for (int k = h; k <= maxLevel; k++) {
+					for (int v = levelHead[k]; v != -1; v = levelNext[v])
+						height[v] = n;
+					levelHead[k] = -1;
+				}
+				maxLevel = h - 1;
+				return;
+			}
+
+			int newHeight = n;
+			for (e = offsets[u]; e < end; e++)
+				if (cap[e] > 0)
+					newHeight = Math.min(newHeight, height[to[e]] + 1);
+			work += end - offsets[u] + 12;
+			removeLevel(u);
+			height[u] = newHeight;
+			cur[u] = offsets[u];
+			if (newHeight >= n)
+				return;
+			addLevel(u);
+			h = newHeight;
+		}
+	}
+
+	void activate(int v) {
+		int h = height[v];
+		if (h >= nodes)
+			return;
+		activeNext[v] = activeHead[h];
+		activeHead[h] = v;
+		highest = Math.max(highest, h);
+	}
+
+	void addLevel(int v) {
+		int h = height[v];
+		levelPrev[v] = -1;
+		levelNext[v] = levelHead[h];
+		if (levelHead[h] != -1)
+			levelPrev[levelHead[h]] = v;
+		levelHead[h] = v;
+		maxLevel = Math.max(maxLevel, h);
+	}
+
+	void removeLevel(int v) {
+		if (levelPrev[v] != -1)
+			levelNext[levelPrev[v]] = levelNext[v];
+		else
+			levelHead[height[v]] = levelNext[v];
+		if (levelNext[v] != -1)
+			levelPrev[levelNext[v]] = levelPrev[v];
+	}
+
+	// exact distances to the sink in the residual graph, vertices that cannot reach it get height nodes
+	void globalRelabel(int src, int dest) {
+		int n = nodes;
+		Arrays.fill(height, n);
+		Arrays.fill(activeHead, -1);
+		Arrays.fill(levelHead, -1);
+		highest = -1;
+		maxLevel = 0;
+		int[] q = queue;
+		int qt = 0;
+		height[dest] = 0;
+		q[qt++] = dest;
+		for (int qh = 0; qh < qt; qh++) {
+			int u = q[qh];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = to[e];
+				if (height[v] == n && v != src && cap[rev[e]] > 0) {
+					height[v] = height[u] + 1;
+					q[qt++] = v;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++)
+			cur[v] = offsets[v];
+		for (int i = 1; i < qt; i++)
+			addLevel(q[i]);
+		for (int i = 1; i < qt; i++) {
+			int v = q[i];
+			if (excess[v] > 0)
+				activate(v);
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		MaxFlowPushRelabel flow = new MaxFlowPushRelabel(3);
+		flow.addEdge(0, 1, 3);
+		flow.addEdge(0, 2, 2);
+		flow.addEdge(1, 2, 2);
+		System.out.println(4 == flow.maxFlow(0, 2));
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 10_000; step++) {
+			int n = rnd.nextInt(20) + 2;
+			int m = rnd.nextInt(60);
+			List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			MaxFlowPushRelabel f = new MaxFlowPushRelabel(n);
+			for (int i = 0; i < m; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int c = rnd.nextInt(1000);
+				MaxFlowDinic.addEdge(graph, u, v, c);
+				f.addEdge(u, v, c);
+			}
+			int expected = MaxFlowDinic.maxFlow(graph, 0, n - 1);
+			if (f.maxFlow(0, n - 1) != expected)
+				throw new RuntimeException();
+		}
+
+		benchmark(40, 40, rnd, true);
+		benchmark(300, 300, rnd, false);
+		benchmark(1000, 1000, rnd, false);
+	}
+
+	// image segmentation style graph: a 4-connected pixel grid with smoothness capacities between neighbors,
+	// every pixel connected to the source (vertex 0) and the sink (vertex n - 1) by its data terms
+	static void benchmark(int width, int height, Random rnd, boolean dense) {
+		int n = width * height + 2;
+		int src = 0;
+		int dest = n - 1;
+		List<int[]> edges = new ArrayList<>();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int p = y * width + x + 1;
+				int fg = rnd.nextInt(100);
+				int bg = rnd.nextInt(100);
+				edges.add(new int[]{src, p, fg});
+				edges.add(new int[]{p, dest, bg});
+				if (x + 1 < width) {
+					int c = rnd.nextInt(50);
+					edges.add(new int[]{p, p + 1, c});
+					edges.add(new int[]{p + 1, p, c});
+				}
+				if (y + 1 < height) {
+					int c = rnd.nextInt(50);
+					edges.add(new int[]{p, p + width, c});
+					edges.add(new int[]{p + width, p, c});
+				}
+			}
+		}
+		StringBuilder sb = new StringBuilder("grid " + width + "x" + height + ":");
+
+		MaxFlowPushRelabel f = new MaxFlowPushRelabel(n);
+		for (int[] e : edges)
+			f.addEdge(e[0], e[1], e[2]);
+		long time = System.currentTimeMillis();
+		long expected = f.maxFlow(src, dest);
+		sb.append(" push-relabel = ").append(System.currentTimeMillis() - time).append(" ms");
+
+		// the recursive dfs of MaxFlowDinic needs a deep stack on large grids
+		long[] res = new long[1];
+		Thread thread = new Thread(null, () -> {
+			List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int[] e : edges)
+				MaxFlowDinic.addEdge(graph, e[0], e[1], e[2]);
+			long t = System.currentTimeMillis();
+			res[0] = MaxFlowDinic.maxFlow(graph, src, dest);
+			sb.append(" MaxFlowDinic = ").append(System.currentTimeMillis() - t).append(" ms");
+		}, "dinic", 1 << 30);
+		thread.start();
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		if (res[0] != expected)
+			throw new RuntimeException();
+
+		if (dense) {
+			MaxFlowPreflowN4 f4 = new MaxFlowPreflowN4();
+			f4.init(n);
+			for (int[] e : edges)
+				f4.addEdge(e[0], e[1], e[2]);
+			time = System.currentTimeMillis();
+			if (f4.maxFlow(src, dest) != expected)
+				throw new RuntimeException();
+			sb.append(" MaxFlowPreflowN4 = ").append(System.currentTimeMillis() - time).append(" ms");
+		}
+		System.out.println(sb);
+	}
+}
@@ -0,0 +1,247 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Parallel push-relabel in synchronous rounds (Baumstark, Blelloch, Shun), https://arxiv.org/abs/1507.01926
+// Like MaxFlowPreflowN4 an active vertex pushes to neighbors one level below and is lifted otherwise, but all
+// active vertices are discharged concurrently against the heights of the previous round. Received excess is
+// collected with atomic adds and new heights are written to a separate array, both are applied after the round.
+// Two adjacent active vertices never push to each other in the same round: only the one with the greater
+// (height, -id) may use the edge, the other one skips it and is not lifted in this round.
+// After O(6 * V + E) lift work a level synchronous parallel BFS from the sink recomputes exact heights
+// (global relabel), vertices that cannot reach the sink get height n and stay inactive.
+public class MaxFlowPushRelabelParallel {
+
+	final MaxFlowPushRelabel graph;
+	int[] offsets;
+	int[] to;
+	int[] rev;
+	AtomicIntegerArray cap;
+	long[] excess;
+	AtomicLongArray addedExcess;
+	int[] height;
+	int[] newHeight;
+	AtomicIntegerArray touched;
+	final AtomicLong work = new AtomicLong();
+
+	public MaxFlowPushRelabelParallel(int nodes) {
+		graph = new MaxFlowPushRelabel(nodes);
+	}
+
+	public void addEdge(int s, int t, int cap) {
+		graph.addEdge(s, t, cap);
+	}
+
+	public long maxFlow(int src, int dest) {
+		return maxFlow(src, dest, ForkJoinPool.commonPool());
+	}
+
+	public long maxFlow(int src, int dest, ForkJoinPool pool) {
+		if (src == dest)
+			return 0;
+		int n = graph.nodes;
+		graph.build();
+		offsets = graph.offsets;
+		to = graph.to;
+		rev = graph.rev;
+		cap = new AtomicIntegerArray(graph.cap);
+		excess = new long[n];
+		addedExcess = new AtomicLongArray(n);
+		height = new int[n];
+		newHeight = new int[n];
+		touched = new AtomicIntegerArray(n);
+		long relabelThreshold = 6L * n + offsets[n];
+
+		int[] next = new int[n];
+		AtomicInteger nextSize = new AtomicInteger();
+		int[] active = new int[0];
+		work.set(relabelThreshold + 1);
+		while (true) {
+			if (work.get() > relabelThreshold) {
+				globalRelabel(src, dest, pool);
+				work.set(0);
+				active = pool.submit(() -> IntStream.range(0, n).parallel().filter(v -> isActive(v, src, dest)).toArray()).join();
+			}
+			if (active.length == 0) {
+				if (work.get() == 0)
+					break;
+				// heights lifted in concurrent rounds may be invalid, stop only on exact heights
+				work.set(relabelThreshold + 1);
+				continue;
+			}
+			int[] cur = active;
+			nextSize.set(0);
+			pool.submit(() -> IntStream.of(cur).parallel().forEach(v -> {
+				discharge(v, src, dest, next, nextSize);
+				touch(v, next, nextSize);
+			})).join();
+			int size = nextSize.get();
+			active = pool.submit(() -> IntStream.range(0, size).parallel().map(i -> next[i]).filter(v -> {
+				touched.set(v, 0);
+				excess[v] += addedExcess.getAndSet(v, 0);
+				height[v] = newHeight[v];
+				return isActive(v, src, dest);
+			}).toArray()).join();
+		}
+		return excess[dest];
+	}
+
+	boolean isActive(int v, int src, int dest) {
+		return v != src && v != dest && excess[v] > 0 && height[v] < graph.nodes;
+	}
+
+	void touch(int v, int[] next, AtomicInteger nextSize) {
+		if (touched.compareAndSet(v, 0, 1))
+			next[nextSize.getAndIncrement()] = v;
+	}
+
+	void discharge(int v, int src, int dest, int[] next, AtomicInteger nextSize) {
+		int n = graph.nodes;
+		long e = excess[v];
+		int h = height[v];
+		while (true) {
+			int minHeight = n;
+			boolean skipped = false;
+			for (int a = offsets[v]; a < offsets[v + 1]; a++) {
+				int c = cap.get(a);
+				if (c == 0)
+					continue;
+				int w = to[a];
+				int hw = height[w];
+				if (isActive(w, src, dest) && (height[v] < hw || height[v] == hw && v > w)) {
+					skipped = true;
+					continue;
+				}
+				if (h == hw + 1) {
+					int d = (int) Math.min(e, c);
+					cap.addAndGet(a, -d);
+					cap.addAndGet(rev[a], d);
+					addedExcess.addAndGet(w, d);
+					touch(w, next, nextSize);
+					e -= d;
+					if (e == 0)
+						break;
+				} else {
+					minHeight = Math.min(minHeight, hw + 1);
+				}
+			}
+			if (e == 0 || skipped)
+				break;
+			h = minHeight;
+			work.addAndGet(offsets[v + 1] - offsets[v] + 12);
+			if (h >= n)
+				break;
+		}
+		addedExcess.addAndGet(v, e - excess[v]);
+		newHeight[v] = h;
+	}
+
+	// level synchronous BFS from the sink in the residual graph, afterwards the source saturates its edges
+	// again: concurrent rounds do not keep the heights valid, this ensures no augmenting path is left when
+	// no vertex is active anymore
+	void globalRelabel(int src, int dest, ForkJoinPool pool) {
+		int n = graph.nodes;
+		Arrays.fill(height, n);
+		height[dest] = 0;
+		int[] frontier = {dest};
+		int[] next = new int[n];
+		AtomicInteger size = new AtomicInteger();
+		AtomicIntegerArray visited = new AtomicIntegerArray(n);
+		visited.set(dest, 1);
+		visited.set(src, 1);
+		for (int level = 1; frontier.length > 0; level++) {
+			int[] cur = frontier;
+			int h = level;
+			size.set(0);
+			pool.submit(() -> IntStream.of(cur).parallel().forEach(u -> {
+				for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+					int v = to[a];
+					if (cap.get(rev[a]) > 0 && visited.get(v) == 0 && visited.compareAndSet(v, 0, 1)) {
+						height[v] = h;
+						next[size.getAndIncrement()] = v;
+					}
+				}
+			})).join();
+			frontier = Arrays.copyOf(next, size.get());
+		}
+		for (int a = offsets[src]; a < offsets[src + 1]; a++) {
+			int c = cap.get(a);
+			if (c > 0 && height[to[a]] < n) {
+				cap.set(a, 0);
+				cap.addAndGet(rev[a], c);
+				excess[to[a]] += c;
+				excess[src] -= c;
+			}
+		}
+		System.arraycopy(height, 0, newHeight, 0, n);
+	}
+
+	// random test
+	public static void main(String[] args) {
+		MaxFlowPushRelabelParallel flow = new MaxFlowPushRelabelParallel(3);
+		flow.addEdge(0, 1, 3);
+		flow.addEdge(0, 2, 2);
+		flow.addEdge(1, 2, 2);
+		System.out.println(4 == flow.maxFlow(0, 2));
+
+		Random rnd = new Random(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int step = 0; step < 10_000; step++) {
+			int n = rnd.nextInt(30) + 2;
+			int m = rnd.nextInt(100);
+			List<MaxFlowDinic.Edge>[] graph = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			MaxFlowPushRelabelParallel f = new MaxFlowPushRelabelParallel(n);
+			for (int i = 0; i < m; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				int c = rnd.nextInt(1000);
+				MaxFlowDinic.addEdge(graph, u, v, c);
+				f.addEdge(u, v, c);
+			}
+			if (f.maxFlow(0, n - 1, pool) != MaxFlowDinic.maxFlow(graph, 0, n - 1))
+				throw new RuntimeException();
+		}
+		pool.shutdown();
+
+		benchmark(1000, 1000, rnd);
+	}
+
+	static void benchmark(int width, int height, Random rnd) {
+		int n = width * height + 2;
+		MaxFlowPushRelabel sequential = new MaxFlowPushRelabel(n);
+		MaxFlowPushRelabelParallel parallel = new MaxFlowPushRelabelParallel(n);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int p = y * width + x + 1;
+				int fg = rnd.nextInt(100);
+				int bg = rnd.nextInt(100);
+				sequential.addEdge(0, p, fg);
+				parallel.addEdge(0, p, fg);
+				sequential.addEdge(p, n - 1, bg);
+				parallel.addEdge(p, n - 1, bg);
+				for (int q : new int[]{x + 1 < width ? p + 1 : -1, y + 1 < height ? p + width : -1}) {
+					if (q == -1)
+						continue;
+					int c = rnd.nextInt(50);
+					sequential.addEdge(p, q, c);
+					sequential.addEdge(q, p, c);
+					parallel.addEdge(p, q, c);
+					parallel.addEdge(q, p, c);
+				}
+			}
+		}
+		long time = System.currentTimeMillis();
+		long expected = sequential.maxFlow(0, n - 1);
+		System.out.println("grid " + width + "x" + height + ": sequential push-relabel = " + (System.currentTimeMillis() - time) + " ms");
+		for (int threads = 1; threads <= 32; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			time = System.currentTimeMillis();
+			if (parallel.maxFlow(0, n - 1, pool) != expected)
+				throw new RuntimeException();
+			System.out.println("  " + threads + " threads = " + (System.currentTimeMillis() - time) + " ms");
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,243 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// https://en.wikipedia.org/wiki/Hopcroft–Karp_algorithm in O(E * sqrt(V)) on CSR adjacency without boxing
+// graph.targets[graph.offsets[u]..graph.offsets[u + 1]) are the right neighbors of left vertex u, graph.cost
+// is not used. The search starts from a Karp-Sipser matching (https://doi.org/10.1109/SFCS.1981.21), which is
+// maximum or close to it on sparse graphs, so few phases are left. The BFS of every phase is level synchronous
+// and expands a layer in parallel, the augmenting DFS is iterative.
+public class MaxMatchingHopcroftKarpCsr {
+
+	public static int maxMatching(CsrGraph graph, int n2) {
+		return maxMatching(graph, n2, new int[n2], ForkJoinPool.commonPool());
+	}
+
+	// matching[v] is the left vertex matched with right vertex v or -1
+	public static int maxMatching(CsrGraph graph, int n2, int[] matching, ForkJoinPool pool) {
+		int n1 = graph.nodes;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		int[] matchL = new int[n1];
+		int res = karpSipser(graph, n2, matchL, matching);
+
+		AtomicIntegerArray dist = new AtomicIntegerArray(n1);
+		int[] it = new int[n1];
+		int[] stack = new int[n1];
+		int[] next = new int[n1];
+		while (true) {
+			// bfs from all free left vertices until a layer reaches a free right vertex
+			for (int u = 0; u < n1; u++)
+				dist.setPlain(u, -1);
+			int[] frontier = IntStream.range(0, n1).filter(u -> matchL[u] == -1).toArray();
+			for (int u : frontier)
+				dist.setPlain(u, 0);
+			AtomicBoolean found = new AtomicBoolean();
+			AtomicInteger size = new AtomicInteger();
+			for (int level = 1; frontier.length > 0 && !found.get(); level++) {
+				int[] cur = frontier;
+				int h = level;
+				size.set(0);
+				pool.submit(() -> IntStream.of(cur).parallel().forEach(u -> {
+					for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+						int u2 = matching[targets[e]];
+						if (u2 < 0)
+							found.set(true);
+						else if (dist.get(u2) < 0 && dist.compareAndSet(u2, -1, h))
+							next[size.getAndIncrement()] = u2;
+					}
+				})).join();
+				frontier = Arrays.copyOf(next, size.get());
+			}
+			if (!found.get())
+				return res;
+
+			int f = 0;
+			for (int u = 0; u < n1; u++)
+				it[u] = offsets[u];
+			for (int root = 0; root < n1; root++) {
+				if (matchL[root] != -1 || dist.getPlain(root) != 0)
+					continue;
+				int depth = 0;
+				stack[depth++] = root;
+				while (depth > 0) {
+					int u = stack[depth - 1];
+					if (it[u] == offsets[u + 1]) {
+						// dead end, never visit u again in this phase
+						dist.setPlain(u, -1);
+						if (--depth > 0)
+							++it[stack[depth - 1]];
+						continue;
+					}
+					int u2 = matching[targets[it[u]]];
+					if (u2 < 0) {
+						for (int d = 0; d < depth; d++) {
+							int x = stack[d];
+							int v = targets[it[x]];
+							matching[v] = x;
+							matchL[x] = v;
+							dist.setPlain(x, -1);
+						}
+						++f;
+						break;
+					}
+					if (dist.getPlain(u2) == dist.getPlain(u) + 1)
+						stack[depth++] = u2;
+					else
+						++it[u];
+				}
+			}
+			res += f;
+		}
+	}
+
+	// repeatedly matches a vertex of degree 1 with its only neighbor, otherwise any free vertex with any free
+	// neighbor; degrees count free neighbors only
+	static int karpSipser(CsrGraph graph, int n2, int[] matchL, int[] matchR) {
+		int n1 = graph.nodes;
+		int[] offsets = graph.offsets;
+		int[] targets = graph.targets;
+		// right to left adjacency
+		int[] rOffsets = new int[n2 + 1];
+		for (int v : targets)
+			++rOffsets[v + 1];
+		for (int v = 0; v < n2; v++)
+			rOffsets[v + 1] += rOffsets[v];
+		int[] pos = Arrays.copyOf(rOffsets, n2);
+		int[] rTargets = new int[targets.length];
+		for (int u = 0; u < n1; u++)
+			for (int e = offsets[u]; e < offsets[u + 1]; e++)
+				rTargets[pos[targets[e]]++] = u;
+
+		Arrays.fill(matchL, -1);
+		Arrays.fill(matchR, -1);
+		// vertices 0..n1-1 are left, n1..n1+n2-1 right
+		int[] deg = new int[n1 + n2];
+		for (int u = 0; u < n1; u++)
+			deg[u] = offsets[u + 1] - offsets[u];
+		for (int v = 0; v < n2; v++)
+			deg[n1 + v] = rOffsets[v + 1] - rOffsets[v];
+		int[] q = new int[n1 + n2];
+		int qt = 0;
+		for (int x = 0; x < n1 + n2; x++)
+			if (deg[x] == 1)
+				q[qt++] = x;
+		int qh = 0;
+		int res = 0;
+		for (int next = 0; ; ) {
+			int u;
+			int v;
+			if (qh < qt) {
+				int x = q[qh++];
+				if (x < n1 ? matchL[x] != -1 : matchR[x - n1] != -1)
+					continue;
+				int y = -1;
+				if (x < n1) {
+					for (int e = offsets[x]; e < offsets[x + 1] && y == -1; e++)
+						if (matchR[targets[e]] == -1)
+							y = targets[e];
+				} else {
+					for (int e = rOffsets[x - n1]; e < rOffsets[x - n1 + 1] && y == -1; e++)
+						if (matchL[rTargets[e]] == -1)
+							y = rTargets[e];
+				}
+				if (y == -1)
+					continue;
+				u = x < n1 ? x : y;
+				v = x < n1 ? y : x - n1;
+			} else {
+				while (next < n1 && (matchL[next] != -1 || deg[next] == 0))
+					++next;
+				if (next == n1)
+					return res;
+				u = next;
+				v = -1;
+				for (int e = offsets[u]; e < offsets[u + 1] && v == -1; e++)
+					if (matchR[targets[e]] == -1)
+						v = targets[e];
+				if (v == -1) {
+					deg[u] = 0;
+					continue;
+				}
+			}
+			matchL[u] = v;
+			matchR[v] = u;
+			++res;
+			// u and v leave the graph
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int w = targets[e];
+				if (matchR[w] == -1 && --deg[n1 + w] == 1)
+					q[qt++] = n1 + w;
+			}
+			for (int e = rOffsets[v]; e < rOffsets[v + 1]; e++) {
+				int w = rTargets[e];
+				if (matchL[w] == -1 && --deg[w] == 1)
+					q[qt++] = w;
+			}
+		}
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int step = 0; step < 1000; step++) {
+			int n1 = rnd.nextInt(20) + 1;
+			int n2 = rnd.nextInt(20) + 1;
+			int m = rnd.nextInt(60);
+			List<Integer>[] graph = Stream.generate(ArrayList::new).limit(n1).toArray(List[]::new);
+			int[] from = new int[m];
+			int[] to = new int[m];
+			for (int i = 0; i < m; i++) {
+				from[i] = rnd.nextInt(n1);
+				to[i] = rnd.nextInt(n2);
+				graph[from[i]].add(to[i]);
+			}
+			CsrGraph g = CsrGraph.build(n1, from, to, new int[m]);
+			int[] matching = new int[n2];
+			int res = maxMatching(g, n2, matching, pool);
+			if (res != MaxMatchingHopcroftKarp.maxMatching(graph, n2))
+				throw new RuntimeException();
+			boolean[] usedLeft = new boolean[n1];
+			int count = 0;
+			for (int v = 0; v < n2; v++) {
+				int u = matching[v];
+				if (u == -1)
+					continue;
+				if (usedLeft[u] || !graph[u].contains(v))
+					throw new RuntimeException();
+				usedLeft[u] = true;
+				++count;
+			}
+			if (count != res)
+				throw new RuntimeException();
+		}
+		pool.shutdown();
+
+		int n1 = 500_000;
+		int n2 = 500_000;
+		int m = 3_000_000;
+		int[] from = new int[m];
+		int[] to = new int[m];
+		List<Integer>[] graph = Stream.generate(ArrayList::new).limit(n1).toArray(List[]::new);
+		for (int i = 0; i < m; i++) {
+			from[i] = rnd.nextInt(n1);
+			to[i] = rnd.nextInt(n2);
+			graph[from[i]].add(to[i]);
+		}
+		CsrGraph g = CsrGraph.build(n1, from, to, new int[m]);
+		long time = System.currentTimeMillis();
+		int res1 = maxMatching(g, n2);
+		long time1 = System.currentTimeMillis();
+		int res2 = MaxMatchingHopcroftKarp.maxMatching(graph, n2);
+		long time2 = System.currentTimeMillis();
+		if (res1 != res2)
+			throw new RuntimeException();
+		int greedy = karpSipser(g, n2, new int[n1], new int[n2]);
+		System.out.println("matching = " + res1 + " (Karp-Sipser " + greedy + "): csr = " + (time1 - time) + " ms, MaxMatchingHopcroftKarp = " + (time2 - time1) + " ms");
+	}
+}
@@ -0,0 +1,344 @@
+import java.util.*;
+import java.util.stream.Stream;
+
+// Cost scaling push-relabel (Goldberg, Tarjan) in O(V^2 * E * log(V * C)), the running time does not depend
+// on the flow value. https://doi.org/10.1006/jagm.1995.0805
+// An arc t -> s with cost -(V * C + 1) turns the problem into a minimum cost circulation, so a maximum flow
+// (up to maxf) is sent first and its cost is minimized. Costs are multiplied by V + 1, so a 1-optimal
+// circulation is optimal. Every refine(eps) saturates the arcs with negative reduced cost and removes the
+// excesses with FIFO push/relabel on admissible arcs. Heuristics: global price updates (Dijkstra towards
+// deficits) and price refinement (skip refine(eps) if the current circulation already is eps-optimal).
+// Like MinCostFlow there must be no negative cost cycles.
+public class MinCostFlowCostScaling {
+
+	static final int ALPHA = 16;
+
+	static class Edge {
+		int to, f, cap, cost, rev;
+
+		Edge(int to, int cap, int cost, int rev) {
+			this.to = to;
+			this.cap = cap;
+			this.cost = cost;
+			this.rev = rev;
+		}
+	}
+
+	public static void addEdge(List<Edge>[] graph, int s, int t, int cap, int cost) {
+		graph[s].add(new Edge(t, cap, cost, graph[t].size()));
+		graph[t].add(new Edge(s, 0, -cost, graph[s].size() - 1));
+	}
+
+	int n;
+	int[] offsets;
+	int[] to;
+	int[] rev;
+	int[] residual;
+	long[] cost;
+	long[] price;
+	long[] excess;
+	int[] cur;
+	int relabels;
+
+	public static int[] minCostFlow(List<Edge>[] graph, int s, int t, int maxf) {
+		return new MinCostFlowCostScaling().solve(graph, s, t, maxf);
+	}
+
+	int[] solve(List<Edge>[] graph, int s, int t, int maxf) {
+		if (s == t)
+			return new int[]{0, 0};
+		n = graph.length;
+		offsets = new int[n + 1];
+		for (int u = 0; u < n; u++)
+			offsets[u + 1] = offsets[u] + graph[u].size() + (u == s || u == t ? 1 : 0);
+		int m = offsets[n];
+		to = new int[m];
+		rev = new int[m];
+		residual = new int[m];
+		cost = new long[m];
+		long maxCost = 0;
+		for (int u = 0; u < n; u++) {
+			for (int i = 0; i < graph[u].size(); i++) {
+				Edge e = graph[u].get(i);
+				int a = offsets[u] + i;
+				to[a] = e.to;
+				rev[a] = offsets[e.to] + e.rev;
+				residual[a] = e.cap - e.f;
+				cost[a] = (long) e.cost * (n + 1);
+				maxCost = Math.max(maxCost, Math.abs(e.cost));
+			}
+		}
+		// the return arc t -> s and its reverse are the last arcs of t and s
+		int ret = offsets[t + 1] - 1;
+		int retRev = offsets[s + 1] - 1;
+		to[ret] = s;
+		to[retRev] = t;
+		rev[ret] = retRev;
+		rev[retRev] = ret;
+		residual[ret] = maxf;
+		cost[ret] = -(n * maxCost + 1) * (n + 1);
+		cost[retRev] = -cost[ret];
+
+		price = new long[n];
+		excess = new long[n];
+		cur = new int[n];
+		long eps = 0;
+		for (int a = 0; a < m; a++)
+			eps = Math.max(eps, Math.abs(cost[a]));
+		while (eps > 1) {
+			eps = Math.max(1, eps / ALPHA);
+			if (!priceRefine(eps))
+				refine(eps);
+		}
+
+		int flow = maxf - residual[ret];
+		long flowCost = 0;
+		for (int u = 0; u < n; u++) {
+			for (int i = 0; i < graph[u].size(); i++) {
+				Edge e = graph[u].get(i);
+				int f = e.cap - residual[offsets[u] + i];
+				if (e.cap > 0)
+					flowCost += (long) (f - e.f) * e.cost;
+				e.f = f;
+			}
+		}
+		return new int[]{flow, (int) flowCost};
+	}
+
+	long reducedCost(int u, int a) {
+		return cost[a] + price[u] - price[to[a]];
+	}
+
+	void push(int u, int a, long d) {
+		residual[a] -= d;
+		residual[rev[a]] += d;
+		excess[u] -= d;
+		excess[to[a]] += d;
+	}
+
+	// turns an eps * ALPHA-optimal circulation into an eps-optimal one
+	void refine(long eps) {
+		for (int u = 0; u < n; u++)
+			for (int a = offsets[u]; a < offsets[u + 1]; a++)
+				if (residual[a] > 0 && reducedCost(u, a) < 0)
+					push(u, a, residual[a]);
+		globalUpdate(eps);
+		int[] q = new int[n];
+		boolean[] queued = new boolean[n];
+		int qh = 0;
+		int qt = 0;
+		int size = 0;
+		for (int u = 0; u < n; u++) {
+			cur[u] = offsets[u];
+			if (excess[u] > 0) {
+				q[qt++] = u;
+				queued[u] = true;
+				++size;
+			}
+		}
+		while (size > 0) {
+			int u = q[qh];
+			qh = qh + 1 == n ? 0 : qh + 1;
+			--size;
+			queued[u] = false;
+			while (excess[u] > 0) {
+				int a = cur[u];
+				for (; a < offsets[u + 1]; a++) {
+					if (residual[a] > 0 && reducedCost(u, a) < 0) {
+						int v = to[a];
+						push(u, a, Math.min(excess[u], residual[a]));
+						if (excess[v] > 0 && !queued[v]) {
+							q[qt] = v;
+							qt = qt + 1 == n ? 0 : qt + 1;
+							queued[v] = true;
+							++size;
+						}
+						if (excess[u] == 0)
+							break;
+					}
+				}
+				cur[u] = a;
+				if (excess[u] == 0)
+					break;
+				// relabel: the best residual arc gets reduced cost -eps
+				long best = Long.MIN_VALUE;
+				for (a = offsets[u]; a < offsets[u + 1]; a++)
+					if (residual[a] > 0)
+						best = Math.max(best, price[to[a]] - cost[a]);
+				price[u] = best - eps;
+				cur[u] = offsets[u];
+				if (++relabels % n == 0) {
+					globalUpdate(eps);
+					for (int v = 0; v < n; v++)
+						cur[v] = offsets[v];
+				}
+			}
+		}
+	}
+
+	// lowers the price of every vertex by eps times its distance to the nearest deficit, where a residual arc
+	// (u, v) has length floor(reduced cost / eps) + 1 >= 0; this keeps eps-optimality and opens admissible
+	// paths from all excesses to deficits
+	void globalUpdate(long eps) {
+		int[] dist = new int[n];
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		boolean[] done = new boolean[n];
+		CsrGraph.LongHeap q = new CsrGraph.LongHeap(n);
+		int remaining = 0;
+		for (int v = 0; v < n; v++) {
+			if (excess[v] < 0) {
+				dist[v] = 0;
+				q.add(v);
+			} else if (excess[v] > 0) {
+				++remaining;
+			}
+		}
+		int last = 0;
+		while (!q.isEmpty() && remaining > 0) {
+			long top = q.removeMin();
+			int v = (int) top;
+			if (done[v] || top >>> 32 != dist[v])
+				continue;
+			done[v] = true;
+			last = dist[v];
+			if (excess[v] > 0)
+				--remaining;
+			for (int a = offsets[v]; a < offsets[v + 1]; a++) {
+				int r = rev[a];
+				int u = to[a];
+				if (residual[r] == 0 || done[u])
+					continue;
+				long nd = dist[v] + Math.floorDiv(reducedCost(u, r), eps) + 1;
+				if (nd < dist[u] && nd < Integer.MAX_VALUE) {
+					dist[u] = (int) nd;
+					q.add((nd << 32) | u);
+				}
+			}
+		}
+		// a vertex that was not reached is at least as far as the last one settled
+		for (int v = 0; v < n; v++)
+			price[v] -= eps * (done[v] ? dist[v] : last);
+	}
+
+	// Bellman-Ford with arc lengths reduced cost + eps and a bounded number of relaxations: if it converges
+	// the circulation is eps-optimal for the new prices and refine(eps) can be skipped
+	boolean priceRefine(long eps) {
+		long[] d = new long[n];
+		int[] q = new int[n];
+		boolean[] queued = new boolean[n];
+		for (int v = 0; v < n; v++) {
+			q[v] = v;
+			queued[v] = true;
+		}
+		int qh = 0;
+		int size = n;
+		long budget = 4L * offsets[n] + n;
+		while (size > 0) {
+			int u = q[qh];
+			qh = qh + 1 == n ? 0 : qh + 1;
+			--size;
+			queued[u] = false;
+			for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+				if (residual[a] == 0)
+					continue;
+				if (--budget < 0)
+					return false;
+				int v = to[a];
+				long nd = d[u] + reducedCost(u, a) + eps;
+				if (d[v] > nd) {
+					d[v] = nd;
+					if (!queued[v]) {
+						q[(qh + size) % n] = v;
+						queued[v] = true;
+						++size;
+					}
+				}
+			}
+		}
+		for (int v = 0; v < n; v++)
+			price[v] += d[v];
+		return true;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		List<Edge>[] graph = Stream.generate(ArrayList::new).limit(3).toArray(List[]::new);
+		addEdge(graph, 0, 1, 3, 1);
+		addEdge(graph, 0, 2, 2, 1);
+		addEdge(graph, 1, 2, 2, 1);
+		int[] res = minCostFlow(graph, 0, 2, Integer.MAX_VALUE);
+		System.out.println(4 == res[0]);
+		System.out.println(6 == res[1]);
+
+		Random rnd = new Random(1);
+		for (int step = 0; step < 10_000; step++) {
+			int n = rnd.nextInt(15) + 2;
+			int m = rnd.nextInt(50);
+			int maxf = rnd.nextBoolean() ? Integer.MAX_VALUE : rnd.nextInt(50);
+			List<Edge>[] g1 = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			List<MinCostFlow.Edge>[] g2 = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int i = 0; i < m; i++) {
+				int u = rnd.nextInt(n);
+				int v = rnd.nextInt(n);
+				if (u == v)
+					continue;
+				int cap = rnd.nextInt(20);
+				int cost = rnd.nextInt(20);
+				addEdge(g1, u, v, cap, cost);
+				MinCostFlow.addEdge(g2, u, v, cap, cost);
+			}
+			int[] res1 = minCostFlow(g1, 0, n - 1, maxf);
+			int[] res2 = MinCostFlow.minCostFlow(g2, 0, n - 1, maxf);
+			if (!Arrays.equals(res1, res2))
+				throw new RuntimeException();
+			// flows are written back into the edges
+			long[] balance = new long[n];
+			long cost = 0;
+			for (int u = 0; u < n; u++) {
+				for (Edge e : g1[u]) {
+					if (e.f > e.cap || g1[e.to].get(e.rev).f != -e.f)
+						throw new RuntimeException();
+					balance[u] -= e.f;
+					if (e.cap > 0)
+						cost += (long) e.f * e.cost;
+				}
+			}
+			if (cost != res1[1] || balance[n - 1] != res1[0])
+				throw new RuntimeException();
+			for (int v = 1; v < n - 1; v++)
+				if (balance[v] != 0)
+					throw new RuntimeException();
+		}
+
+		// transportation instance with high capacities
+		int suppliers = 100;
+		int consumers = 100;
+		int n = suppliers + consumers + 2;
+		List<Edge>[] g1 = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		List<MinCostFlow.Edge>[] g2 = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		for (int i = 0; i < suppliers; i++) {
+			int supply = rnd.nextInt(1_000_000);
+			addEdge(g1, n - 2, i, supply, 0);
+			MinCostFlow.addEdge(g2, n - 2, i, supply, 0);
+			for (int j = 0; j < consumers; j++) {
+				int cap = rnd.nextInt(20_000);
+				int cost = rnd.nextInt(100);
+				addEdge(g1, i, suppliers + j, cap, cost);
+				MinCostFlow.addEdge(g2, i, suppliers + j, cap, cost);
+			}
+		}
+		for (int j = 0; j < consumers; j++) {
+			int demand = rnd.nextInt(1_000_000);
+			addEdge(g1, suppliers + j, n - 1, demand, 0);
+			MinCostFlow.addEdge(g2, suppliers + j, n - 1, demand, 0);
+		}
+		long time = System.currentTimeMillis();
+		int[] res1 = minCostFlow(g1, n - 2, n - 1, 10_000_000);
+		long time1 = System.currentTimeMillis();
+		int[] res2 = MinCostFlow.minCostFlow(g2, n - 2, n - 1, 10_000_000);
+		long time2 = System.currentTimeMillis();
+		if (!Arrays.equals(res1, res2))
+			throw new RuntimeException();
+		System.out.println("flow = " + res1[0] + " cost = " + res1[1] + ": cost scaling = " + (time1 - time) + " ms, MinCostFlow = " + (time2 - time1) + " ms");
+	}
+}
@@ -0,0 +1,103 @@
+// https://en.wikipedia.org/wiki/Pairing_heap
+// Nodes are the ids 0..n-1 and live in preallocated arrays, so no objects are created per operation.
+// prev[x] is the parent if x is the leftmost child, otherwise the left sibling.
+public class PairingHeap implements AddressableHeap {
+	long[] key;
+	int[] child;
+	int[] sibling;
+	int[] prev;
+	int[] stack;
+	int root = -1;
+	int size;
+
+	public PairingHeap(int n) {
+		key = new long[n];
+		child = new int[n];
+		sibling = new int[n];
+		prev = new int[n];
+		stack = new int[n];
+	}
+
+	@Override
+	public void add(int id, long value) {
+		key[id] = value;
+		child[id] = -1;
+		sibling[id] = -1;
+		prev[id] = -1;
+		root = root == -1 ? id : meld(root, id);
+		++size;
+	}
+
+	@Override
+	public void decreaseKey(int id, long value) {
+		key[id] = value;
+		if (id == root)
+			return;
+		if (child[prev[id]] == id)
+			child[prev[id]] = sibling[id];
+		else
+			sibling[prev[id]] = sibling[id];
+		if (sibling[id] != -1)
+			prev[sibling[id]] = prev[id];
+		sibling[id] = -1;
+		prev[id] = -1;
+		root = meld(root, id);
+	}
+
+	@Override
+	public int removeMin() {
+		int removed = root;
+		--size;
+		// two-pass pairing: meld pairs left to right, then fold the results right to left
+		int cnt = 0;
+		for (int x = child[root]; x != -1; ) {
+			int a = x;
+			int b = sibling[a];
+			x = b == -1 ? -1 : sibling[b];
+			sibling[a] = prev[a] = -1;
+			if (b != -1) {
+				sibling[b] = prev[b] = -1;
+				a = meld(a, b);
+			}
+			stack[cnt++] = a;
+		}
+		root = cnt == 0 ? -1 : stack[--cnt];
+		while (cnt > 0)
+			root = meld(stack[--cnt], root);
+		return removed;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// a and b are roots without siblings, the larger one becomes the leftmost child of the other
+	int meld(int a, int b) {
+		if (key[b] < key[a]) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+		sibling[b] = child[a];
+		if (child[a] != -1)
+			prev[child[a]] = b;
+		prev[b] = a;
+		child[a] = b;
+		return a;
+	}
+
+	// Usage example
+	public static void main(String[] args) {
+		PairingHeap heap = new PairingHeap(10);
+		heap.add(0, 4);
+		heap.add(1, 5);
+		heap.add(2, 2);
+		heap.decreaseKey(1, 1);
+
+		// print elements in sorted order
+		while (heap.size != 0) {
+			System.out.println(heap.key[heap.root] + " " + heap.removeMin());
+		}
+	}
+}
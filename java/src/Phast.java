@@ -0,0 +1,148 @@
+import java.util.*;
+
+// PHAST one-to-all shortest paths on a contraction hierarchy: https://www.microsoft.com/en-us/research/publication/phast-hardware-accelerated-shortest-path-trees/
+// An upward search from the source is followed by one linear sweep over all vertices in descending rank order.
+// Vertices are renumbered by rank, so the sweep reads distances and edges sequentially.
+public class Phast {
+
+	static final int INF = Integer.MAX_VALUE / 2;
+
+	final int nodes;
+	// position of vertex in descending rank order and the inverse permutation
+	final int[] pos;
+	final int[] vertexAt;
+	// upward edges of position p: upTarget[upStart[p]..upStart[p + 1]), targets have smaller positions
+	final int[] upStart;
+	final int[] upTarget;
+	final int[] upLen;
+	// incoming downward edges of position p: downSource[downStart[p]..downStart[p + 1]), sources have smaller positions
+	final int[] downStart;
+	final int[] downSource;
+	final int[] downLen;
+
+	// g is a preprocessed graph, vertices with equal levels are ordered by id
+	public Phast(ContractionHierarchies.LayerGraph g) {
+		nodes = g.nodes;
+		Integer[] order = new Integer[nodes];
+		for (int i = 0; i < nodes; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> g.levels[a] != g.levels[b] ? Integer.compare(g.levels[b], g.levels[a]) : Integer.compare(b, a));
+		pos = new int[nodes];
+		vertexAt = new int[nodes];
+		for (int i = 0; i < nodes; i++) {
+			vertexAt[i] = order[i];
+			pos[order[i]] = i;
+		}
+
+		upStart = new int[nodes + 1];
+		downStart = new int[nodes + 1];
+		for (int e = 0; e < g.edges; e++) {
+			int pu = pos[g.u[e]];
+			int pv = pos[g.v[e]];
+			if (pu > pv)
+				++upStart[pu + 1];
+			else if (pu < pv)
+				++downStart[pv + 1];
+		}
+		for (int i = 0; i < nodes; i++) {
+			upStart[i + 1] += upStart[i];
+			downStart[i + 1] += downStart[i];
+		}
+		upTarget = new int[upStart[nodes]];
+		upLen = new int[upStart[nodes]];
+		downSource = new int[downStart[nodes]];
+		downLen = new int[downStart[nodes]];
+		int[] upPos = Arrays.copyOf(upStart, nodes);
+		int[] downPos = Arrays.copyOf(downStart, nodes);
+		for (int e = 0; e < g.edges; e++) {
+			int pu = pos[g.u[e]];
+			int pv = pos[g.v[e]];
+			if (pu > pv) {
+				upTarget[upPos[pu]] = pv;
+				upLen[upPos[pu]++] = g.len[e];
+			} else if (pu < pv) {
+				downSource[downPos[pv]] = pu;
+				downLen[downPos[pv]++] = g.len[e];
+			}
+		}
+	}
+
+	// dist[v] for every vertex v, INF if unreachable
+	public int[] oneToAll(int s) {
+		return manyToAll(new int[]{s})[0];
+	}
+
+	// k sources share one sweep: the distances of position p are stored in d[p*k..p*k+k)
+	public int[][] manyToAll(int[] sources) {
+		int k = sources.length;
+		int[] d = new int[nodes * k];
+		Arrays.fill(d, INF);
+		CsrGraph.LongHeap q = new CsrGraph.LongHeap(16);
+		for (int i = 0; i < k; i++) {
+			int s = pos[sources[i]];
+			d[s * k + i] = 0;
+			q.add(s);
+			while (!q.isEmpty()) {
+				long cur = q.removeMin();
+				int u = (int) cur;
+				int priou = d[u * k + i];
+				if (cur >>> 32 != priou)
+					continue;
+				for (int e = upStart[u]; e < upStart[u + 1]; e++) {
+					int v = upTarget[e];
+					int nprio = priou + upLen[e];
+					if (d[v * k + i] > nprio) {
+						d[v * k + i] = nprio;
+						q.add(((long) nprio << 32) | v);
+					}
+				}
+			}
+		}
+
+		for (int p = 0; p < nodes; p++) {
+			int base = p * k;
+			for (int e = downStart[p]; e < downStart[p + 1]; e++) {
+				int from = downSource[e] * k;
+				int len = downLen[e];
+				for (int i = 0; i < k; i++)
+					d[base + i] = Math.min(d[base + i], d[from + i] + len);
+			}
+		}
+
+		int[][] res = new int[k][nodes];
+		for (int p = 0; p < nodes; p++)
+			for (int i = 0; i < k; i++)
+				res[i][vertexAt[p]] = d[p * k + i];
+		return res;
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		for (int step = 0; step < 100; step++) {
+			int V = rnd.nextInt(100) + 2;
+			int E = Math.max(V, Math.min(V * (V - 1), 5 * V));
+			int[][] d = ContractionHierarchies.generateStronglyConnectedDigraph(V, E, rnd);
+			ContractionHierarchies.LayerGraph origGraph = new ContractionHierarchies.LayerGraph(V, 100000);
+			for (int i = 0; i < V; i++)
+				for (int j = 0; j < V; j++)
+					if (i != j && d[i][j] != INF)
+						origGraph.addEdge(i, j, d[i][j]);
+			for (int k = 0; k < V; k++)
+				for (int i = 0; i < V; i++)
+					for (int j = 0; j < V; j++)
+						d[i][j] = Math.min(d[i][j], d[i][k] + d[k][j]);
+
+			ContractionHierarchies.LayerGraph g = step % 2 == 0 ? ContractionHierarchies.preprocess(origGraph) : ContractionHierarchies.preprocessParallel(origGraph);
+			Phast phast = new Phast(g);
+			int s = rnd.nextInt(V);
+			if (!Arrays.equals(d[s], phast.oneToAll(s)))
+				throw new RuntimeException();
+			int[] sources = rnd.ints(rnd.nextInt(10) + 1, 0, V).toArray();
+			int[][] res = phast.manyToAll(sources);
+			for (int i = 0; i < sources.length; i++)
+				if (!Arrays.equals(d[sources[i]], res[i]))
+					throw new RuntimeException();
+		}
+	}
+}
@@ -33,6 +33,66 @@ public class PrimHeap {
 		return res;
 	}
 
+	// with any AddressableHeap of capacity edges.length, e.g. DaryHeap or PairingHeap
+	public static long mst(List<Edge>[] edges, int[] pred, AddressableHeap h) {
+		int n = edges.length;
+		Arrays.fill(pred, -1);
+		boolean[] used = new boolean[n];
+		int[] prio = new int[n];
+		Arrays.fill(prio, Integer.MAX_VALUE);
+		prio[0] = 0;
+		h.add(0, 0);
+		long res = 0;
+
+		while (h.size() != 0) {
+			int u = h.removeMin();
+			used[u] = true;
+			res += prio[u];
+			for (Edge e : edges[u]) {
+				int v = e.t;
+				if (!used[v] && prio[v] > e.cost) {
+					if (prio[v] == Integer.MAX_VALUE)
+						h.add(v, e.cost);
+					else
+						h.decreaseKey(v, e.cost);
+					prio[v] = e.cost;
+					pred[v] = u;
+				}
+			}
+		}
+		return res;
+	}
+
+	public static long mst(CsrGraph g, int[] pred) {
+		int n = g.nodes;
+		Arrays.fill(pred, -1);
+		boolean[] used = new boolean[n];
+		int[] prio = new int[n];
+		Arrays.fill(prio, Integer.MAX_VALUE);
+		prio[0] = 0;
+		CsrGraph.LongHeap q = new CsrGraph.LongHeap(n);
+		q.add(0L);
+		long res = 0;
+
+		while (!q.isEmpty()) {
+			long cur = q.removeMin();
+			int u = (int) cur;
+			if (used[u])
+				continue;
+			used[u] = true;
+			res += cur >>> 32;
+			for (int e = g.offsets[u]; e < g.offsets[u + 1]; e++) {
+				int v = g.targets[e];
+				if (!used[v] && prio[v] > g.cost[e]) {
+					prio[v] = g.cost[e];
+					pred[v] = u;
+					q.add(((long) prio[v] << 32) + v);
+				}
+			}
+		}
+		return res;
+	}
+
 	static class Edge {
 		int t, cost;
 
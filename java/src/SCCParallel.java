@@ -0,0 +1,320 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Parallel strongly connected components on CSR adjacency (Multistep, Slota, Rajamanickam, Madduri,
+// https://doi.org/10.1109/IPDPS.2014.64):
+// - trimming: a vertex without remaining in- or out-neighbors is a component of its own;
+// - forward-backward: the vertices reachable from a pivot that also reach it form its component, which is the
+//   giant one in most real graphs when the pivot has the largest in-degree * out-degree;
+// - coloring for the rest: every vertex takes the largest id that reaches it, a vertex r with color r is the
+//   root of a component consisting of the vertices of color r that reach r.
+// Every step runs in parallel over the remaining vertices, the BFSs of forward-backward are level synchronous.
+// Components are numbered in topological order of the condensation like SCCKosaraju.scc.
+public class SCCParallel {
+
+	// comp[u] is the component of vertex u, edges between components go from smaller to larger ids
+	public static int[] scc(CsrGraph graph) {
+		return scc(graph, ForkJoinPool.commonPool());
+	}
+
+	public static int[] scc(CsrGraph graph, ForkJoinPool pool) {
+		int n = graph.nodes;
+		CsrGraph reverse = graph.reverse();
+		// rep[u] is a vertex of the component of u or -1 while u is unassigned
+		int[] rep = new int[n];
+		Arrays.fill(rep, -1);
+		int[] active = IntStream.range(0, n).toArray();
+
+		// a single pass, vertices trimmed concurrently may or may not be seen as removed
+		pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+			if (!hasActiveNeighbor(graph, rep, u) || !hasActiveNeighbor(reverse, rep, u))
+				rep[u] = u;
+		})).join();
+		active = filterActive(active, rep, pool);
+
+		if (active.length > 0) {
+			int[] cur = active;
+			int pivot = pool.submit(() -> IntStream.of(cur).parallel().reduce((u, v) ->
+					(long) graph.degree(u) * reverse.degree(u) >= (long) graph.degree(v) * reverse.degree(v) ? u : v).getAsInt()).join();
+			AtomicIntegerArray mark = new AtomicIntegerArray(n);
+			bfs(graph, pivot, rep, mark, 0, 1, pool);
+			bfs(reverse, pivot, rep, mark, 1, 2, pool);
+			pool.submit(() -> IntStream.of(cur).parallel().forEach(u -> {
+				if (mark.get(u) == 2)
+					rep[u] = pivot;
+			})).join();
+			active = filterActive(active, rep, pool);
+		}
+
+		int[] color = new int[n];
+		int[] start = new int[n];
+		int[] queue = new int[n];
+		while (active.length > 0) {
+			int[] cur = active;
+			for (int u : cur)
+				color[u] = u;
+			AtomicBoolean changed = new AtomicBoolean(true);
+			while (changed.get()) {
+				changed.set(false);
+				// only u writes color[u], reads may see colors of this or the previous pass, both are lower bounds
+				pool.submit(() -> IntStream.of(cur).parallel().forEach(u -> {
+					int c = color[u];
+					for (int e = reverse.offsets[u]; e < reverse.offsets[u + 1]; e++) {
+						int v = reverse.targets[e];
+						if (rep[v] == -1)
+							c = Math.max(c, color[v]);
+					}
+					if (c > color[u]) {
+						color[u] = c;
+						changed.set(true);
+					}
+				})).join();
+			}
+			// backward searches of different roots stay inside different colors, each one gets the slice of queue
+			// that fits its color
+			for (int u : cur)
+				start[color[u]] = 0;
+			for (int u : cur)
+				++start[color[u]];
+			int offset = 0;
+			for (int r : cur) {
+				if (color[r] == r) {
+					int size = start[r];
+					start[r] = offset;
+					offset += size;
+				}
+			}
+			pool.submit(() -> IntStream.of(cur).parallel().filter(r -> color[r] == r).forEach(r -> {
+				int qt = start[r];
+				queue[qt++] = r;
+				rep[r] = r;
+				for (int qh = start[r]; qh < qt; qh++) {
+					int u = queue[qh];
+					for (int e = reverse.offsets[u]; e < reverse.offsets[u + 1]; e++) {
+						int v = reverse.targets[e];
+						if (rep[v] == -1 && color[v] == r) {
+							rep[v] = r;
+							queue[qt++] = v;
+						}
+					}
+				}
+			})).join();
+			active = filterActive(active, rep, pool);
+		}
+
+		return topologicalNumbering(graph, rep);
+	}
+
+	static boolean hasActiveNeighbor(CsrGraph graph, int[] rep, int u) {
+		for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+			int v = graph.targets[e];
+			if (v != u && rep[v] == -1)
+				return true;
+		}
+		return false;
+	}
+
+	static int[] filterActive(int[] active, int[] rep, ForkJoinPool pool) {
+		return pool.submit(() -> IntStream.of(active).parallel().filter(u -> rep[u] == -1).toArray()).join();
+	}
+
+	// level synchronous bfs over unassigned vertices with mark == from, sets their mark to to
+	static void bfs(CsrGraph graph, int root, int[] rep, AtomicIntegerArray mark, int from, int to, ForkJoinPool pool) {
+		mark.set(root, to);
+		int[] frontier = {root};
+		int[] next = new int[graph.nodes];
+		AtomicInteger size = new AtomicInteger();
+		while (frontier.length > 0) {
+			int[] cur = frontier;
+			size.set(0);
+			pool.submit(() -> IntStream.of(cur).parallel().forEach(u -> {
+				for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+					int v = graph.targets[e];
+					if (rep[v] == -1 && mark.getPlain(v) == from && mark.compareAndSet(v, from, to))
+						next[size.getAndIncrement()] = v;
+				}
+			})).join();
+			frontier = Arrays.copyOf(next, size.get());
+		}
+	}
+
+	// renumbers the components by representative in the order of Kahn's algorithm on the condensation
+	static int[] topologicalNumbering(CsrGraph graph, int[] rep) {
+		int n = graph.nodes;
+		int[] id = new int[n];
+		int count = 0;
+		for (int u = 0; u < n; u++)
+			if (rep[u] == u)
+				id[u] = count++;
+		int[] comp = new int[n];
+		for (int u = 0; u < n; u++)
+			comp[u] = id[rep[u]];
+		CsrGraph dag = crossEdges(graph, comp, count);
+		int[] inDegree = new int[count];
+		for (int v : dag.targets)
+			++inDegree[v];
+		int[] order = new int[count];
+		int size = 0;
+		for (int c = 0; c < count; c++)
+			if (inDegree[c] == 0)
+				order[size++] = c;
+		for (int i = 0; i < size; i++) {
+			int c = order[i];
+			for (int e = dag.offsets[c]; e < dag.offsets[c + 1]; e++)
+				if (--inDegree[dag.targets[e]] == 0)
+					order[size++] = dag.targets[e];
+		}
+		int[] rank = new int[count];
+		for (int i = 0; i < count; i++)
+			rank[order[i]] = i;
+		for (int u = 0; u < n; u++)
+			comp[u] = rank[comp[u]];
+		return comp;
+	}
+
+	// DAG of strongly connected components without parallel edges, cost is 0
+	public static CsrGraph sccGraph(CsrGraph graph, int[] comp) {
+		int count = 0;
+		for (int c : comp)
+			count = Math.max(count, c + 1);
+		CsrGraph g = crossEdges(graph, comp, count);
+		int[] offsets = new int[count + 1];
+		int[] targets = new int[g.targets.length];
+		int size = 0;
+		for (int c = 0; c < count; c++) {
+			Arrays.sort(g.targets, g.offsets[c], g.offsets[c + 1]);
+			for (int e = g.offsets[c]; e < g.offsets[c + 1]; e++)
+				if (e == g.offsets[c] || g.targets[e] != g.targets[e - 1])
+					targets[size++] = g.targets[e];
+			offsets[c + 1] = size;
+		}
+		return new CsrGraph(offsets, Arrays.copyOf(targets, size), new int[size]);
+	}
+
+	// edges between different components, possibly parallel
+	static CsrGraph crossEdges(CsrGraph graph, int[] comp, int count) {
+		int m = 0;
+		for (int u = 0; u < graph.nodes; u++)
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++)
+				if (comp[u] != comp[graph.targets[e]])
+					++m;
+		int[] from = new int[m];
+		int[] to = new int[m];
+		m = 0;
+		for (int u = 0; u < graph.nodes; u++) {
+			for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+				int v = graph.targets[e];
+				if (comp[u] != comp[v]) {
+					from[m] = comp[u];
+					to[m++] = comp[v];
+				}
+			}
+		}
+		return CsrGraph.build(count, from, to, new int[m]);
+	}
+
+	static CsrGraph toCsr(List<Integer>[] graph) {
+		int m = Arrays.stream(graph).mapToInt(List::size).sum();
+		int[] from = new int[m];
+		int[] to = new int[m];
+		m = 0;
+		for (int u = 0; u < graph.length; u++) {
+			for (int v : graph[u]) {
+				from[m] = u;
+				to[m++] = v;
+			}
+		}
+		return CsrGraph.build(graph.length, from, to, new int[m]);
+	}
+
+	// random test
+	public static void main(String[] args) {
+		Random rnd = new Random(1);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int step = 0; step < 1000; step++) {
+			int n = rnd.nextInt(50) + 1;
+			int m = rnd.nextInt(3 * n);
+			List<Integer>[] g = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+			for (int i = 0; i < m; i++)
+				g[rnd.nextInt(n)].add(rnd.nextInt(n));
+			CsrGraph graph = toCsr(g);
+			int[] comp = scc(graph, pool);
+
+			List<List<Integer>> components = SCCKosaraju.scc(g);
+			int[] expected = new int[n];
+			for (int i = 0; i < components.size(); i++)
+				for (int u : components.get(i))
+					expected[u] = i;
+			// same partition, and both numberings are topological
+			int[] map = new int[components.size()];
+			Arrays.fill(map, -1);
+			for (int u = 0; u < n; u++) {
+				if (map[expected[u]] == -1)
+					map[expected[u]] = comp[u];
+				if (map[expected[u]] != comp[u])
+					throw new RuntimeException();
+			}
+			if (Arrays.stream(map).distinct().count() != components.size())
+				throw new RuntimeException();
+			for (int u = 0; u < n; u++)
+				for (int v : g[u])
+					if (comp[u] > comp[v])
+						throw new RuntimeException();
+
+			List<Integer>[] dag1 = SCCKosaraju.sccGraph(g, components);
+			CsrGraph dag2 = sccGraph(graph, comp);
+			for (int c = 0; c < dag1.length; c++) {
+				Set<Integer> s1 = dag1[c].stream().map(d -> map[d]).collect(Collectors.toSet());
+				Set<Integer> s2 = new HashSet<>();
+				for (int e = dag2.offsets[map[c]]; e < dag2.offsets[map[c] + 1]; e++)
+					s2.add(dag2.targets[e]);
+				if (!s1.equals(s2) || dag2.degree(map[c]) != dag1[c].size())
+					throw new RuntimeException();
+			}
+		}
+		pool.shutdown();
+
+		// a giant component in the first half, cycles of length 5 in the second half, all other edges go from the
+		// first half to the second or from a cycle to a later one
+		int n = 2_000_000;
+		int m = 10_000_000;
+		int[] from = new int[m];
+		int[] to = new int[m];
+		List<Integer>[] g = Stream.generate(ArrayList::new).limit(n).toArray(List[]::new);
+		for (int i = 0; i < m; i++) {
+			if (i < m / 2) {
+				from[i] = rnd.nextInt(n / 2);
+				to[i] = rnd.nextInt(n / 2);
+			} else if (i < m / 2 + n / 2) {
+				int u = n / 2 + i - m / 2;
+				from[i] = u;
+				to[i] = u % 5 == 4 ? u - 4 : u + 1;
+			} else {
+				int u = n / 2 + rnd.nextInt(n / 2);
+				int v = n / 2 + rnd.nextInt(n / 2);
+				from[i] = u / 5 < v / 5 ? u : v / 5 < u / 5 ? v : rnd.nextInt(n / 2);
+				to[i] = Math.max(u, v);
+			}
+			g[from[i]].add(to[i]);
+		}
+		CsrGraph graph = CsrGraph.build(n, from, to, new int[m]);
+		long time = System.currentTimeMillis();
+		int count = SCCTarjanNoRecursion.scc(g).size();
+		System.out.println("SCCTarjanNoRecursion: " + count + " components, " + (System.currentTimeMillis() - time) + " ms");
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			pool = new ForkJoinPool(threads);
+			time = System.currentTimeMillis();
+			int[] comp = scc(graph, pool);
+			if (Arrays.stream(comp).max().getAsInt() + 1 != count)
+				throw new RuntimeException();
+			System.out.println("parallel, " + threads + " threads: " + (System.currentTimeMillis() - time) + " ms");
+			pool.shutdown();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class SCCTest {
 
@@ -13,8 +14,10 @@ public class SCCTest {
 			Set<Set> s2 = SCCKosaraju.scc(g).stream().map(HashSet::new).collect(Collectors.toSet());
 			Set<Set> s3 = new SCCTarjan().scc(g).stream().map(HashSet::new).collect(Collectors.toSet());
 			Set<Set> s4 = SCCTarjanNoRecursion.scc(g).stream().map(HashSet::new).collect(Collectors.toSet());
+			int[] comp = SCCParallel.scc(SCCParallel.toCsr(g));
+			Set<Set> s5 = new HashSet<>(IntStream.range(0, n).boxed().collect(Collectors.groupingBy(u -> comp[u], Collectors.toSet())).values());
 
-			if (!s1.equals(s2) || !s1.equals(s3) || !s1.equals(s4))
+			if (!s1.equals(s2) || !s1.equals(s3) || !s1.equals(s4) || !s1.equals(s5))
 				throw new RuntimeException();
 		}
 	}